@@ -0,0 +1,113 @@
+package com.example.randompsd.benchmark;
+
+import com.example.randompsd.index.WordList;
+import com.example.randompsd.security.AuthMetrics;
+import com.example.randompsd.security.JwtUtils;
+import com.example.randompsd.service.impl.BreachLookupServiceImpl;
+import com.example.randompsd.service.impl.PassphraseGenerator;
+import com.example.randompsd.service.impl.PasswordGenerator;
+import com.example.randompsd.service.impl.PasswordMetrics;
+import com.example.randompsd.service.impl.PasswordPool;
+import com.example.randompsd.service.impl.PasswordServiceImpl;
+import com.example.randompsd.service.impl.PatternStrengthEstimator;
+import com.example.randompsd.service.impl.StripedEntropyPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * 基准测试用的服务实例与测试数据，不启动Spring容器，依赖通过反射注入
+ * 只装配被测路径用到的依赖，不连接数据库
+ */
+final class BenchmarkFixtures {
+
+    static final String JWT_SECRET = "defaultSecretKeyNeedsToBeAtLeast32BytesLongForHS256Algorithm";
+
+    private BenchmarkFixtures() {
+    }
+
+    static PasswordServiceImpl passwordService() throws IOException {
+        StripedEntropyPool entropyPool = new StripedEntropyPool(0, 4096, 1 << 20, 600_000);
+        PatternStrengthEstimator estimator = new PatternStrengthEstimator();
+        estimator.init();
+
+        PasswordServiceImpl passwordService = new PasswordServiceImpl();
+        ReflectionTestUtils.setField(passwordService, "entropyPool", entropyPool);
+        ReflectionTestUtils.setField(passwordService, "patternStrengthEstimator", estimator);
+        ReflectionTestUtils.setField(passwordService, "breachLookupService", new BreachLookupServiceImpl());
+        // 计时开销计入结果，与生产环境一致
+        ReflectionTestUtils.setField(passwordService, "passwordMetrics", new PasswordMetrics(new SimpleMeterRegistry()));
+        // init()会预热最近记录缓冲区并访问数据库，这里只创建生成器
+        ReflectionTestUtils.setField(passwordService, "passwordGenerator", new PasswordGenerator(entropyPool));
+        try (InputStream in = new ClassPathResource("dictionary/passphrase-words.txt").getInputStream()) {
+            ReflectionTestUtils.setField(passwordService, "passphraseGenerator",
+                    new PassphraseGenerator(entropyPool, WordList.load(in)));
+        }
+        ReflectionTestUtils.setField(passwordService, "passphraseMaxWords", 20);
+        // 密码池默认关闭，基准测试测量的是现场生成
+        ReflectionTestUtils.setField(passwordService, "passwordPool", new PasswordPool());
+        return passwordService;
+    }
+
+    static JwtUtils jwtUtils(int cacheSize) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86_400_000);
+        ReflectionTestUtils.setField(jwtUtils, "verifiedTokenCacheSize", cacheSize);
+        ReflectionTestUtils.setField(jwtUtils, "authMetrics", new AuthMetrics(new SimpleMeterRegistry()));
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    /**
+     * 强度评估语料：内置词表中的常见密码及其常见变形（首字母大写加年份、l33t替换、加符号），
+     * 再混入随机生成的强密码，固定种子保证每次运行相同
+     */
+    static List<String> evaluationCorpus(int size) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource("dictionary/common-words.txt").getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    words.add(line);
+                }
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        String randomAlphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789!@#$%^&*";
+        List<String> corpus = new ArrayList<>(size);
+        while (corpus.size() < size) {
+            String word = words.get(random.nextInt(words.size()));
+            switch (random.nextInt(5)) {
+                case 0 -> corpus.add(word);
+                case 1 -> corpus.add(Character.toUpperCase(word.charAt(0)) + word.substring(1)
+                        + (1970 + random.nextInt(56)));
+                case 2 -> corpus.add(word.toLowerCase(Locale.ROOT)
+                        .replace('a', '@').replace('o', '0').replace('e', '3').replace('s', '$'));
+                case 3 -> corpus.add(word + "!" + random.nextInt(100));
+                default -> {
+                    StringBuilder password = new StringBuilder();
+                    int length = 10 + random.nextInt(11);
+                    for (int i = 0; i < length; i++) {
+                        password.append(randomAlphabet.charAt(random.nextInt(randomAlphabet.length())));
+                    }
+                    corpus.add(password.toString());
+                }
+            }
+        }
+        return corpus;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.randompsd.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 以1、2、4...直到CPU核数的线程数依次运行 {@link EntropyPoolBenchmark}，输出吞吐扩展表
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.main=com.example.randompsd.benchmark.EntropyPoolScaling
+ * 可通过jmh.args传入最大线程数，在核数较少的机器上观察超订时的争用情况
+ */
+public class EntropyPoolScaling {
+
+    public static void main(String[] args) throws RunnerException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads <<= 1) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(maxThreads);
+
+        List<String> rows = new ArrayList<>();
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(EntropyPoolBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                rows.add(String.format("%-8d %-30s %14.1f ops/ms",
+                        threads,
+                        result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                        result.getPrimaryResult().getScore()));
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-8s %-30s %14s%n", "threads", "benchmark", "throughput");
+        rows.forEach(System.out::println);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.randompsd.benchmark;
+
+import com.example.randompsd.dto.PasswordHistoryView;
+import com.example.randompsd.model.PasswordHistory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 历史记录响应的序列化开销：JPA实体与只读记录视图对比
+ * 分配量可加 -prof gc 查看；查询侧省去的实体快照和脏检查需在真实数据库上观察
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistorySerializationBenchmark {
+
+    @Param({"10", "100"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<PasswordHistory> entities;
+    private List<PasswordHistoryView> views;
+
+    @Setup
+    public void setup() {
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        entities = new ArrayList<>(size);
+        views = new ArrayList<>(size);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < size; i++) {
+            PasswordHistory history = new PasswordHistory();
+            history.setId((long) i);
+            history.setPassword("aB3$eF6&hI9*kL2@");
+            history.setLength(16);
+            history.setUseUpper(true);
+            history.setUseDigits(true);
+            history.setUseSpecial(true);
+            history.setCreatedAt(now.minusSeconds(i));
+            entities.add(history);
+            views.add(new PasswordHistoryView(history.getId(), history.getPassword(), history.getLength(),
+                    history.isUseUpper(), history.isUseDigits(), history.isUseSpecial(), history.getCreatedAt()));
+        }
+    }
+
+    @Benchmark
+    public byte[] entities() throws Exception {
+        return objectMapper.writeValueAsBytes(entities);
+    }
+
+    @Benchmark
+    public byte[] views() throws Exception {
+        return objectMapper.writeValueAsBytes(views);
+    }
+}
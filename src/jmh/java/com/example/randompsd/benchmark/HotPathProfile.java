@@ -0,0 +1,73 @@
+package com.example.randompsd.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 以单线程和CPU核数线程运行服务热路径基准测试并附带GC分析，输出吞吐/耗时与每次操作的分配字节数
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.main=com.example.randompsd.benchmark.HotPathProfile
+ * 可通过 -Djmh.args="Jwt" 只运行名称匹配的基准测试
+ */
+public class HotPathProfile {
+
+    private static final String DEFAULT_INCLUDE =
+            "PasswordGenerationBenchmark|PassphraseGenerationBenchmark|PasswordEvaluationBenchmark|JwtBenchmark|BCryptBenchmark|RateLimitBenchmark";
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : DEFAULT_INCLUDE;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = maxThreads > 1 ? new int[]{1, maxThreads} : new int[]{1};
+
+        List<String> rows = new ArrayList<>();
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    // 显式标注@Threads的Contended变体已覆盖多线程，这里只运行单线程方法
+                    .exclude(".*Contended")
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                Result<?> primary = result.getPrimaryResult();
+                rows.add(String.format("%-8d %-48s %14.3f %-8s %12s",
+                        threads,
+                        describe(result),
+                        primary.getScore(),
+                        primary.getScoreUnit(),
+                        allocation(result.getSecondaryResults())));
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-8s %-48s %14s %-8s %12s%n", "threads", "benchmark", "score", "unit", "B/op");
+        rows.forEach(System.out::println);
+    }
+
+    private static String describe(RunResult result) {
+        StringBuilder name = new StringBuilder(result.getParams().getBenchmark().replaceAll(".*\\.(\\w+\\.\\w+)$", "$1"));
+        for (String key : result.getParams().getParamsKeys()) {
+            name.append(' ').append(key).append('=').append(result.getParams().getParam(key));
+        }
+        return name.toString();
+    }
+
+    private static String allocation(Map<String, Result> secondary) {
+        for (Map.Entry<String, Result> entry : secondary.entrySet()) {
+            if (entry.getKey().endsWith("gc.alloc.rate.norm")) {
+                return String.format("%.1f", entry.getValue().getScore());
+            }
+        }
+        return "-";
+    }
+}
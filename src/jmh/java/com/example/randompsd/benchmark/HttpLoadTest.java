@@ -0,0 +1,106 @@
+package com.example.randompsd.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 高并发HTTP压测，用于对比平台线程与虚拟线程模式（spring.threads.virtual.enabled）
+ * 每个并发连接由一个虚拟线程循环发送请求，结束后输出吞吐、错误数和延迟分位
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.main=com.example.randompsd.benchmark.HttpLoadTest
+ *       -Djmh.args="http://localhost:8080/api/generate 2000 60 &lt;JWT令牌&gt;"
+ * 参数依次为：URL、并发数、持续秒数、JWT令牌（可选）；URL以/generate结尾时发送POST请求
+ */
+public class HttpLoadTest {
+
+    private static final String GENERATE_BODY =
+            "{\"length\":16,\"useUpper\":true,\"useDigits\":true,\"useSpecial\":true}";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("用法: HttpLoadTest <URL> [并发数] [持续秒数] [JWT令牌]");
+            System.exit(1);
+        }
+        URI uri = URI.create(args[0]);
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        String token = args.length > 3 ? args[3] : null;
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        if (uri.getPath().endsWith("/generate")) {
+            builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(GENERATE_BODY));
+        }
+        HttpRequest request = builder.build();
+
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<long[]>> workers = new ArrayList<>(concurrency);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(executor).build()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> run(client, request, deadline, errors)));
+            }
+
+            long[][] perWorker = new long[concurrency][];
+            int total = 0;
+            for (int i = 0; i < concurrency; i++) {
+                perWorker[i] = workers.get(i).get();
+                total += perWorker[i].length;
+            }
+            long[] latencies = new long[total];
+            int offset = 0;
+            for (long[] worker : perWorker) {
+                System.arraycopy(worker, 0, latencies, offset, worker.length);
+                offset += worker.length;
+            }
+            Arrays.sort(latencies);
+
+            System.out.printf("请求数 %d，错误 %d，吞吐 %.1f req/s%n", total, errors.sum(), total / (double) seconds);
+            if (total > 0) {
+                System.out.printf("延迟 p50 %.1fms  p90 %.1fms  p99 %.1fms  max %.1fms%n",
+                        percentile(latencies, 0.50), percentile(latencies, 0.90),
+                        percentile(latencies, 0.99), latencies[total - 1] / 1e6);
+            }
+        }
+    }
+
+    private static long[] run(HttpClient client, HttpRequest request, long deadline, LongAdder errors) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 400) {
+                    errors.increment();
+                }
+            } catch (Exception e) {
+                errors.increment();
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
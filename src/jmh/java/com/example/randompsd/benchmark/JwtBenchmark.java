@@ -0,0 +1,77 @@
+package com.example.randompsd.benchmark;
+
+import com.example.randompsd.model.User;
+import com.example.randompsd.security.JwtUtils;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtils的令牌签发与校验
+ * validateCached为同一令牌重复请求（命中已验证令牌缓存），validateUncached轮换令牌并把缓存容量设为1，每次都完整解析和计算HMAC
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final int TOKENS = 1024;
+
+    private JwtUtils jwtUtils;
+    private JwtUtils uncachedJwtUtils;
+    private User user;
+    private String token;
+    private String[] tokens;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setup() {
+        jwtUtils = BenchmarkFixtures.jwtUtils(10_000);
+        uncachedJwtUtils = BenchmarkFixtures.jwtUtils(1);
+
+        user = new User();
+        user.setId(42L);
+        user.setUsername("benchmark");
+        token = jwtUtils.generateJwtToken(user);
+
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            User other = new User();
+            other.setId((long) i);
+            other.setUsername("user" + i);
+            tokens[i] = jwtUtils.generateJwtToken(other);
+        }
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtils.generateJwtToken(user);
+    }
+
+    @Benchmark
+    public Optional<Claims> validateCached() {
+        return jwtUtils.verifyAndParse(token);
+    }
+
+    @Benchmark
+    public Optional<Claims> validateUncached(Cursor cursor) {
+        String next = tokens[cursor.next];
+        cursor.next = (cursor.next + 1) & (TOKENS - 1);
+        return uncachedJwtUtils.verifyAndParse(next);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Optional<Claims> validateCachedContended() {
+        return jwtUtils.verifyAndParse(token);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.randompsd.benchmark;
+
+import com.example.randompsd.dto.PasswordRequest;
+import com.example.randompsd.service.impl.PasswordServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PasswordServiceImpl.generatePassword 在passphrase模式下不同词数的吞吐，使用内置词表
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PassphraseGenerationBenchmark {
+
+    @Param({"4", "6", "8"})
+    public int wordCount;
+
+    private PasswordServiceImpl passwordService;
+    private PasswordRequest request;
+
+    @Setup
+    public void setup() throws IOException {
+        passwordService = BenchmarkFixtures.passwordService();
+        request = new PasswordRequest();
+        request.setMode("passphrase");
+        request.setWordCount(wordCount);
+        request.setCapitalize(true);
+        request.setInjectDigit(true);
+    }
+
+    @Benchmark
+    public String generate() {
+        return passwordService.generatePassword(request);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generateContended() {
+        return passwordService.generatePassword(request);
+    }
+}
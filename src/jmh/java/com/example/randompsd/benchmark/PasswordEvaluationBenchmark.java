@@ -0,0 +1,61 @@
+package com.example.randompsd.benchmark;
+
+import com.example.randompsd.dto.PasswordStrength;
+import com.example.randompsd.service.impl.PasswordServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * evaluatePasswordStrength 在混合语料上的单次耗时，basic为字符类型评分，entropy额外做模式识别
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEvaluationBenchmark {
+
+    private static final int CORPUS_SIZE = 4096;
+
+    @Param({"basic", "entropy"})
+    public String mode;
+
+    private PasswordServiceImpl passwordService;
+    private String[] corpus;
+
+    /**
+     * 每个线程独立遍历语料，避免共享游标的争用影响结果
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        passwordService = BenchmarkFixtures.passwordService();
+        List<String> passwords = BenchmarkFixtures.evaluationCorpus(CORPUS_SIZE);
+        corpus = passwords.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public PasswordStrength evaluate(Cursor cursor) {
+        return passwordService.evaluatePasswordStrength(next(cursor), mode);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public PasswordStrength evaluateContended(Cursor cursor) {
+        return passwordService.evaluatePasswordStrength(next(cursor), mode);
+    }
+
+    private String next(Cursor cursor) {
+        String password = corpus[cursor.next];
+        cursor.next = (cursor.next + 1) & (CORPUS_SIZE - 1);
+        return password;
+    }
+}
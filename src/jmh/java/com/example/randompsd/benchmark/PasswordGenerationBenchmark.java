@@ -0,0 +1,49 @@
+package com.example.randompsd.benchmark;
+
+import com.example.randompsd.service.impl.PasswordServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PasswordServiceImpl.generatePassword 在不同长度和字符类型组合下的吞吐
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordGenerationBenchmark {
+
+    @Param({"8", "16", "32", "64"})
+    public int length;
+
+    @Param({"lower", "upper", "upper+digits", "upper+digits+special"})
+    public String flags;
+
+    private PasswordServiceImpl passwordService;
+    private boolean useUpper;
+    private boolean useDigits;
+    private boolean useSpecial;
+
+    @Setup
+    public void setup() throws IOException {
+        passwordService = BenchmarkFixtures.passwordService();
+        useUpper = flags.contains("upper");
+        useDigits = flags.contains("digits");
+        useSpecial = flags.contains("special");
+    }
+
+    @Benchmark
+    public String generate() {
+        return passwordService.generatePassword(length, useUpper, useDigits, useSpecial);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generateContended() {
+        return passwordService.generatePassword(length, useUpper, useDigits, useSpecial);
+    }
+}
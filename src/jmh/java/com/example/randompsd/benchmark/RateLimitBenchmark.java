@@ -0,0 +1,64 @@
+package com.example.randompsd.benchmark;
+
+import com.example.randompsd.security.RateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流器每次请求的开销：Map查找加一次CAS
+ * 速率设为远高于测试吞吐，请求总是被允许，测量的是放行路径；hotKey为所有线程争用同一个键，spreadKeys轮换1024个IP
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    private static final int KEYS = 1024;
+
+    private RateLimiter limiter;
+    private String[] addresses;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setup() {
+        limiter = new RateLimiter("benchmark", 1_000_000, 1e12);
+        addresses = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            addresses[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public long hotKey() {
+        return limiter.tryAcquire(addresses[0], System.nanoTime());
+    }
+
+    @Benchmark
+    public long spreadKeys(Cursor cursor) {
+        String address = addresses[cursor.next];
+        cursor.next = (cursor.next + 1) & (KEYS - 1);
+        return limiter.tryAcquire(address, System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long hotKeyContended() {
+        return limiter.tryAcquire(addresses[0], System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long spreadKeysContended(Cursor cursor) {
+        String address = addresses[cursor.next];
+        cursor.next = (cursor.next + 1) & (KEYS - 1);
+        return limiter.tryAcquire(address, System.nanoTime());
+    }
+}
@@ -4,9 +4,12 @@ import com.example.randompsd.dto.UserLoginRequest;
 import com.example.randompsd.dto.UserRegistrationRequest;
 import com.example.randompsd.model.User;
 import com.example.randompsd.security.JwtUtils;
+import com.example.randompsd.security.PasswordHashingBusyException;
 import com.example.randompsd.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -28,27 +31,15 @@ public class AuthController {
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@Valid @RequestBody UserRegistrationRequest request) {
         try {
-            // 检查用户名是否已存在
-            if (userService.isUsernameExists(request.getUsername())) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("error", "用户名已被使用");
-                return ResponseEntity.badRequest().body(response);
-            }
-
-            // 检查邮箱是否已存在
-            if (userService.isEmailExists(request.getEmail())) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("error", "电子邮箱已被使用");
-                return ResponseEntity.badRequest().body(response);
-            }
-
-            // 注册新用户
+            // 注册新用户，用户名或邮箱已被使用时由唯一约束拒绝
             User user = userService.registerUser(request);
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "用户注册成功");
             response.put("username", user.getUsername());
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingBusyException e) {
+            return tooManyRequests(e);
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("error", e.getMessage());
@@ -76,10 +67,52 @@ public class AuthController {
                 response.put("error", "用户名或密码不正确");
                 return ResponseEntity.badRequest().body(response);
             }
+        } catch (PasswordHashingBusyException e) {
+            return tooManyRequests(e);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * 检查用户名和电子邮箱是否可以注册，至少传入一个参数，返回传入字段对应的可用性
+     * 大多数检查只查询内存中的布隆过滤器，不访问数据库
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<?> checkAvailability(@RequestParam(required = false) String username,
+                                               @RequestParam(required = false) String email) {
+        try {
+            boolean hasUsername = username != null && !username.isBlank();
+            boolean hasEmail = email != null && !email.isBlank();
+            if (!hasUsername && !hasEmail) {
+                throw new IllegalArgumentException("请提供用户名或电子邮箱");
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            if (hasUsername) {
+                response.put("username", userService.isUsernameAvailable(username));
+            }
+            if (hasEmail) {
+                response.put("email", userService.isEmailAvailable(email));
+            }
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("error", e.getMessage());
             return ResponseEntity.badRequest().body(response);
         }
     }
+
+    /**
+     * BCrypt线程池繁忙时快速拒绝，客户端按Retry-After重试
+     */
+    private ResponseEntity<?> tooManyRequests(PasswordHashingBusyException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+    }
 }
@@ -1,18 +1,31 @@
 package com.example.randompsd.controller;
 
+import com.example.randompsd.dto.BatchPasswordRequest;
+import com.example.randompsd.dto.HistoryPage;
+import com.example.randompsd.dto.PasswordHistoryView;
 import com.example.randompsd.dto.PasswordRequest;
-import com.example.randompsd.model.PasswordHistory;
-import com.example.randompsd.model.User;
+import com.example.randompsd.dto.PasswordStrength;
+import com.example.randompsd.security.AuthenticatedUser;
 import com.example.randompsd.security.JwtUtils;
 import com.example.randompsd.service.PasswordService;
-import com.example.randompsd.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,32 +36,48 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")  // 允许跨域请求
 public class PasswordController {
 
+    // 历史记录因用户而异，只允许浏览器缓存，每次使用前都需用ETag向服务器确认
+    private static final CacheControl HISTORY_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     @Autowired
     private PasswordService passwordService;
     
-    @Autowired
-    private UserService userService;
-    
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${password.batch.max-count:100000}")
+    private int batchMaxCount;
+
+    @Value("${password.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @Value("${password.history.page-size:20}")
+    private int historyPageSize;
+
+    @Value("${password.history.max-page-size:100}")
+    private int historyMaxPageSize;
+
     @PostMapping("/generate")
     public ResponseEntity<?> generatePassword(@RequestBody PasswordRequest request) {
         try {
-            String password = passwordService.generatePassword(request);
+            String password = passwordService.generateSinglePassword(request);
             
             // 获取当前用户（如果已登录）
-            Optional<User> currentUser = getCurrentUser();
+            Optional<Long> currentUserId = getCurrentUserId();
             
             // 保存密码历史记录（如果已登录，则关联用户）
-            if (currentUser.isPresent()) {
-                passwordService.savePasswordHistory(password, request, currentUser.get());
+            if (currentUserId.isPresent()) {
+                passwordService.savePasswordHistory(password, request, currentUserId.get());
             } else {
                 passwordService.savePasswordHistory(password, request);
             }
             
             Map<String, Object> response = new HashMap<>();
             response.put("password", password);
+            response.put("entropyBits", passwordService.entropyBits(request));
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -57,22 +86,93 @@ public class PasswordController {
         }
     }
     
+    /**
+     * 批量生成密码，以NDJSON（每行一个JSON对象）流式返回
+     * 按块生成、批量保存并立即写出，内存占用与批量大小无关
+     */
+    @PostMapping("/generate/batch")
+    public ResponseEntity<?> generatePasswordBatch(@RequestBody BatchPasswordRequest request) {
+        try {
+            int count = request.getCount();
+            if (count <= 0 || count > batchMaxCount) {
+                throw new IllegalArgumentException("批量生成数量必须在1-" + batchMaxCount + "之间");
+            }
+            PasswordRequest template = request.getTemplate();
+            if (template == null) {
+                throw new IllegalArgumentException("缺少密码生成参数");
+            }
+            // 流式输出开始后无法再返回400，参数在请求线程中先校验
+            passwordService.validate(template);
+            
+            // 流式响应在异步线程中执行，需提前在请求线程获取当前用户
+            Long userId = getCurrentUserId().orElse(null);
+            
+            StreamingResponseBody body = out -> writePasswordBatch(out, template, count, userId);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(body);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+    
+    /**
+     * 获取最近的密码历史，带ETag；If-None-Match匹配时直接返回304，不访问数据库
+     */
     @GetMapping("/history")
-    public ResponseEntity<?> getPasswordHistory() {
+    public ResponseEntity<?> getPasswordHistory(WebRequest webRequest) {
         try {
             // 获取当前用户（如果已登录）
-            Optional<User> currentUser = getCurrentUser();
+            Optional<Long> currentUserId = getCurrentUserId();
+            
+            // 先取版本再读数据，并发写入时ETag只会比数据旧，下次轮询重新获取
+            String etag = passwordService.getHistoryETag(currentUserId.orElse(null));
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(HISTORY_CACHE_CONTROL)
+                        .varyBy(HttpHeaders.AUTHORIZATION)
+                        .build();
+            }
             
-            List<PasswordHistory> history;
-            if (currentUser.isPresent()) {
+            List<PasswordHistoryView> history;
+            if (currentUserId.isPresent()) {
                 // 如果已登录，返回用户的密码历史
-                history = passwordService.getPasswordHistoryByUser(currentUser.get());
+                history = passwordService.getPasswordHistoryByUser(currentUserId.get());
             } else {
                 // 如果未登录，返回公共历史记录
                 history = passwordService.getRecentPasswords();
             }
             
-            return ResponseEntity.ok(history);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(HISTORY_CACHE_CONTROL)
+                    .varyBy(HttpHeaders.AUTHORIZATION)
+                    .body(history);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+    
+    /**
+     * 按游标分页获取密码历史，首页不传cursor，之后传入上一页返回的nextCursor
+     */
+    @GetMapping("/history/page")
+    public ResponseEntity<?> getPasswordHistoryPage(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer size) {
+        try {
+            int pageSize = size != null ? size : historyPageSize;
+            if (pageSize <= 0 || pageSize > historyMaxPageSize) {
+                throw new IllegalArgumentException("每页条数必须在1-" + historyMaxPageSize + "之间");
+            }
+            
+            Long userId = getCurrentUserId().orElse(null);
+            HistoryPage<PasswordHistoryView> page = passwordService.getPasswordHistoryPage(userId, cursor, pageSize);
+            return ResponseEntity.ok(page);
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("error", e.getMessage());
@@ -88,7 +188,7 @@ public class PasswordController {
                 throw new IllegalArgumentException("密码不能为空");
             }
             
-            Map<String, Object> evaluation = passwordService.evaluatePasswordStrength(password);
+            PasswordStrength evaluation = passwordService.evaluatePasswordStrength(password, request.get("mode"));
             return ResponseEntity.ok(evaluation);
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -97,18 +197,49 @@ public class PasswordController {
         }
     }
     
+    private void writePasswordBatch(OutputStream out, PasswordRequest template, int count, Long userId) throws IOException {
+        int chunkSize = Math.max(1, Math.min(batchChunkSize, count));
+        List<String> chunk = new ArrayList<>(chunkSize);
+        
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            
+            int remaining = count;
+            while (remaining > 0) {
+                int size = Math.min(chunkSize, remaining);
+                for (int i = 0; i < size; i++) {
+                    chunk.add(passwordService.generatePassword(template));
+                }
+                
+                // 先落库再写出，保证返回给客户端的密码都有历史记录
+                passwordService.savePasswordHistoryBatch(chunk, template, userId);
+                
+                for (String password : chunk) {
+                    generator.writeStartObject();
+                    generator.writeStringField("password", password);
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+                
+                chunk.clear();
+                remaining -= size;
+            }
+        }
+    }
+    
     /**
-     * 获取当前登录用户
-     * @return 当前用户（如果已登录）
+     * 获取当前登录用户的ID（直接取自认证主体，不查询数据库）
+     * @return 当前用户ID（如果已登录）
      */
-    private Optional<User> getCurrentUser() {
+    private Optional<Long> getCurrentUserId() {
         // 获取当前的认证信息
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         
         if (authentication != null && authentication.isAuthenticated() && 
-                authentication.getPrincipal() instanceof UserDetails) {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            return userService.findByUsername(userDetails.getUsername());
+                authentication.getPrincipal() instanceof AuthenticatedUser) {
+            AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+            return Optional.ofNullable(user.getId());
         }
         
         return Optional.empty();
@@ -0,0 +1,9 @@
+package com.example.randompsd.dto;
+
+import lombok.Data;
+
+@Data
+public class BatchPasswordRequest {
+    private int count;
+    private PasswordRequest template;
+}
@@ -0,0 +1,21 @@
+package com.example.randompsd.dto;
+
+import java.util.List;
+
+/**
+ * 基于模式识别的密码强度估算结果
+ * @param guesses 估算的猜测次数，最大为10^300，超出时以entropyBits为准
+ * @param entropyBits 熵（比特），即log2(guesses)
+ * @param score 等级（0-4），分别对应猜测次数低于10^3、10^6、10^8、10^10及以上
+ * @param patterns 密码被分解成的模式片段
+ */
+public record EntropyEstimate(double guesses, double entropyBits, int score, List<Match> patterns) {
+
+    /**
+     * 识别出的模式片段
+     * @param pattern 模式类型：dictionary、spatial、repeat、sequence、date、bruteforce
+     * @param token 对应的密码片段
+     */
+    public record Match(String pattern, String token) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.randompsd.dto;
+
+import java.util.List;
+
+/**
+ * 按游标分页的历史记录
+ * @param items 当前页的记录，按创建时间倒序
+ * @param nextCursor 下一页游标，没有更多记录时为null
+ */
+public record HistoryPage<T>(List<T> items, String nextCursor) {
+}
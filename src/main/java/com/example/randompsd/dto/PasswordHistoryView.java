@@ -0,0 +1,18 @@
+package com.example.randompsd.dto;
+
+import com.example.randompsd.model.PasswordHistory;
+
+import java.time.LocalDateTime;
+
+/**
+ * 密码历史记录的只读视图，由JPQL构造表达式直接查询生成，不经过实体和持久化上下文
+ * 字段与 {@link com.example.randompsd.model.PasswordHistory} 序列化后的字段一致
+ */
+public record PasswordHistoryView(Long id, String password, int length, boolean useUpper, boolean useDigits,
+                                  boolean useSpecial, LocalDateTime createdAt) {
+
+    public static PasswordHistoryView of(PasswordHistory history) {
+        return new PasswordHistoryView(history.getId(), history.getPassword(), history.getLength(),
+                history.isUseUpper(), history.isUseDigits(), history.isUseSpecial(), history.getCreatedAt());
+    }
+}
@@ -4,8 +4,24 @@ import lombok.Data;
 
 @Data
 public class PasswordRequest {
+    // 生成模式：random（默认，随机字符）或passphrase（口令短语）
+    private String mode;
+
+    // random模式参数
     private int length;
     private boolean useUpper;
     private boolean useDigits;
     private boolean useSpecial;
+
+    // random模式的约束：每类至少字符数（0为不限制）、排除易混淆字符0O1lI、自定义字符集、相邻字符不重复
+    private int minPerClass;
+    private boolean excludeAmbiguous;
+    private String customAlphabet;
+    private boolean noAdjacentRepeats;
+
+    // passphrase模式参数：词数（为0时使用默认值）、分隔符（为null时使用"-"）、首字母大写、在随机一个词后插入一位数字
+    private int wordCount;
+    private String separator;
+    private boolean capitalize;
+    private boolean injectDigit;
 }
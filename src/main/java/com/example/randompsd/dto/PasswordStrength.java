@@ -0,0 +1,28 @@
+package com.example.randompsd.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 密码强度评估结果
+ * @param score 评分（0-100）
+ * @param strength 强度级别
+ * @param feedback 评估建议
+ * @param estimate 基于模式识别的熵估算，仅在entropy模式下返回
+ * @param breachCount 在泄露库中的出现次数，仅在配置了泄露库索引时返回
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PasswordStrength(int score, String strength, String feedback, EntropyEstimate estimate,
+                               Integer breachCount) {
+
+    public PasswordStrength(int score, String strength, String feedback) {
+        this(score, strength, feedback, null, null);
+    }
+
+    public PasswordStrength withEstimate(EntropyEstimate estimate) {
+        return new PasswordStrength(score, strength, feedback, estimate, breachCount);
+    }
+
+    public PasswordStrength withBreachCount(Integer breachCount) {
+        return new PasswordStrength(score, strength, feedback, estimate, breachCount);
+    }
+}
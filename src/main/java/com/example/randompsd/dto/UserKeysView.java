@@ -0,0 +1,7 @@
+package com.example.randompsd.dto;
+
+/**
+ * 用户的唯一键（用户名和邮箱），由JPQL构造表达式直接查询生成，用于构建可用性索引
+ */
+public record UserKeysView(Long id, String username, String email) {
+}
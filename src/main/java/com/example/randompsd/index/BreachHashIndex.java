@@ -0,0 +1,178 @@
+package com.example.randompsd.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 只读的泄露密码哈希索引，记录按哈希字节序排列，文件按段内存映射，不加载到堆上
+ * 文件格式（大端序）：
+ * <pre>
+ * int magic | int version | int algorithm | int hashBytes | long count
+ * long[65537]    buckets   以哈希前两个字节为前缀的记录起始序号，最后一项为记录总数
+ * record[count]  records   byte[hashBytes] hash | int occurrences
+ * </pre>
+ * 由 {@link BreachIndexBuilder} 生成。单个文件可超过2GB，每段映射不超过1GB且记录不跨段
+ */
+public final class BreachHashIndex {
+
+    static final int MAGIC = 0x52504248; // "RPBH"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int BUCKETS = 1 << 16;
+    static final int RECORDS_START = HEADER_BYTES + (BUCKETS + 1) * Long.BYTES;
+    static final int COUNT_BYTES = Integer.BYTES;
+
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    /**
+     * 哈希算法，对应常见泄露库提供的两种格式
+     */
+    public enum Algorithm {
+        SHA1(1, 20),
+        NTLM(2, 16);
+
+        private final int id;
+        private final int hashBytes;
+
+        Algorithm(int id, int hashBytes) {
+            this.id = id;
+            this.hashBytes = hashBytes;
+        }
+
+        public int id() {
+            return id;
+        }
+
+        public int hashBytes() {
+            return hashBytes;
+        }
+
+        public byte[] digest(String password) {
+            if (this == NTLM) {
+                return Md4.digest(password.getBytes(StandardCharsets.UTF_16LE));
+            }
+            try {
+                return MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        static Algorithm of(int id) {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.id == id) {
+                    return algorithm;
+                }
+            }
+            throw new IllegalArgumentException("未知的哈希算法: " + id);
+        }
+    }
+
+    private final Algorithm algorithm;
+    private final int hashBytes;
+    private final int recordBytes;
+    private final long count;
+    private final long[] buckets;
+    private final long recordsPerSegment;
+    private final ByteBuffer[] segments;
+
+    private BreachHashIndex(FileChannel channel) throws IOException {
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, RECORDS_START);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("不是有效的泄露密码索引文件");
+        }
+        this.algorithm = Algorithm.of(header.getInt(8));
+        this.hashBytes = header.getInt(12);
+        if (hashBytes != algorithm.hashBytes()) {
+            throw new IllegalArgumentException("索引文件的哈希长度与算法不符");
+        }
+        this.recordBytes = hashBytes + COUNT_BYTES;
+        this.count = header.getLong(16);
+        if (channel.size() < RECORDS_START + count * recordBytes) {
+            throw new IllegalArgumentException("索引文件不完整");
+        }
+
+        // 桶表只有512KB，放在堆上避免每次查询多一次映射读取
+        this.buckets = new long[BUCKETS + 1];
+        header.position(HEADER_BYTES);
+        header.asLongBuffer().get(buckets);
+
+        this.recordsPerSegment = MAX_SEGMENT_BYTES / recordBytes;
+        int segmentCount = (int) ((count + recordsPerSegment - 1) / recordsPerSegment);
+        this.segments = new ByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long first = i * recordsPerSegment;
+            long records = Math.min(recordsPerSegment, count - first);
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY,
+                    RECORDS_START + first * recordBytes, records * recordBytes);
+            segments[i] = segment;
+        }
+    }
+
+    public static BreachHashIndex map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new BreachHashIndex(channel);
+        }
+    }
+
+    public Algorithm algorithm() {
+        return algorithm;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    /**
+     * 查询密码在泄露库中的出现次数
+     * @return 出现次数，未收录时返回0
+     */
+    public int occurrences(String password) {
+        return occurrences(algorithm.digest(password));
+    }
+
+    /**
+     * 按哈希查询出现次数：先用前两个字节定位桶，再在桶内二分查找
+     * @return 出现次数，未收录时返回0
+     */
+    public int occurrences(byte[] hash) {
+        if (hash.length != hashBytes) {
+            throw new IllegalArgumentException("哈希长度应为" + hashBytes + "字节");
+        }
+        int prefix = (hash[0] & 0xff) << 8 | (hash[1] & 0xff);
+        long low = buckets[prefix];
+        long high = buckets[prefix + 1];
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            ByteBuffer segment = segments[(int) (mid / recordsPerSegment)];
+            int offset = (int) (mid % recordsPerSegment) * recordBytes;
+            int cmp = compare(segment, offset, hash);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid;
+            } else {
+                return segment.getInt(offset + hashBytes);
+            }
+        }
+        return 0;
+    }
+
+    private int compare(ByteBuffer segment, int offset, byte[] hash) {
+        // 同一个桶内前两个字节相同，从第三个字节开始比较
+        for (int i = 2; i < hashBytes; i++) {
+            int diff = (segment.get(offset + i) & 0xff) - (hash[i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+}
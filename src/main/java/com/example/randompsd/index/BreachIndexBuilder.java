@@ -0,0 +1,360 @@
+package com.example.randompsd.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * 将泄露密码哈希列表（每行 "HASH" 或 "HASH:次数"，十六进制）编译为 {@link BreachHashIndex} 二进制文件
+ * 用法：java -cp app.jar com.example.randompsd.index.BreachIndexBuilder &lt;sha1|ntlm&gt; &lt;输出文件&gt; &lt;哈希列表&gt; [哈希列表...]
+ * 输入按块读入、块内排序后写成临时有序段，再多路归并写出，堆内存只与块大小有关；
+ * 重复的哈希合并为一条，次数相加。块大小可用 -Dbreach.chunk-records 调整
+ */
+public final class BreachIndexBuilder {
+
+    static final int DEFAULT_CHUNK_RECORDS = 4 * 1024 * 1024;
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    private static final int IO_BUFFER_BYTES = 1 << 16;
+
+    private final BreachHashIndex.Algorithm algorithm;
+    private final int hashBytes;
+    private final int recordBytes;
+    private final byte[] chunk;
+    private final int chunkRecords;
+    private final Path tempDir;
+    private final List<Path> runs = new ArrayList<>();
+
+    private int buffered;
+    private boolean chunkSorted = true;
+    private long accepted;
+    private long rejected;
+
+    public BreachIndexBuilder(BreachHashIndex.Algorithm algorithm, int chunkRecords, Path tempDir) {
+        this.algorithm = algorithm;
+        this.hashBytes = algorithm.hashBytes();
+        this.recordBytes = hashBytes + BreachHashIndex.COUNT_BYTES;
+        this.chunkRecords = chunkRecords;
+        this.chunk = new byte[Math.multiplyExact(chunkRecords, recordBytes)];
+        this.tempDir = tempDir;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("用法: BreachIndexBuilder <sha1|ntlm> <输出文件> <哈希列表> [哈希列表...]");
+            System.exit(1);
+        }
+        BreachHashIndex.Algorithm algorithm = BreachHashIndex.Algorithm.valueOf(args[0].toUpperCase(Locale.ROOT));
+        int chunkRecords = Integer.getInteger("breach.chunk-records", DEFAULT_CHUNK_RECORDS);
+        Path output = Path.of(args[1]);
+        Path parent = output.toAbsolutePath().getParent();
+
+        BreachIndexBuilder builder = new BreachIndexBuilder(algorithm, chunkRecords, parent);
+        for (int i = 2; i < args.length; i++) {
+            try (InputStream in = Files.newInputStream(Path.of(args[i]))) {
+                builder.addList(in);
+            }
+        }
+        long written = builder.writeTo(output);
+        System.out.println("已读取 " + builder.accepted() + " 行，忽略 " + builder.rejected()
+                + " 行无效数据，写入 " + written + " 个哈希到 " + output);
+    }
+
+    /**
+     * 读取一个哈希列表，空行和以#开头的行被忽略，格式不正确的行计入忽略数
+     */
+    public void addList(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII), IO_BUFFER_BYTES);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (parse(line, buffered * recordBytes)) {
+                accepted++;
+                append();
+            } else {
+                rejected++;
+            }
+        }
+    }
+
+    /**
+     * 已读取的有效行数
+     */
+    public long accepted() {
+        return accepted;
+    }
+
+    /**
+     * 因格式不正确被忽略的行数
+     */
+    public long rejected() {
+        return rejected;
+    }
+
+    /**
+     * 归并所有有序段并写出索引文件，完成后删除临时文件
+     * @return 去重后的哈希数量
+     */
+    public long writeTo(Path output) throws IOException {
+        if (buffered > 0) {
+            spill();
+        }
+        long[] bucketCounts = new long[BreachHashIndex.BUCKETS];
+        long count = 0;
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), IO_BUFFER_BYTES)) {
+                // 头部和桶表先占位，归并结束后回填
+                out.write(new byte[BreachHashIndex.RECORDS_START]);
+                count = merge(out, bucketCounts);
+            }
+            writeHeader(output, count, bucketCounts);
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            runs.clear();
+        }
+        return count;
+    }
+
+    private boolean parse(String line, int offset) {
+        int colon = line.indexOf(':');
+        int hexEnd = colon < 0 ? line.length() : colon;
+        if (hexEnd != hashBytes * 2) {
+            return false;
+        }
+        for (int i = 0; i < hashBytes; i++) {
+            int high = Character.digit(line.charAt(2 * i), 16);
+            int low = Character.digit(line.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return false;
+            }
+            chunk[offset + i] = (byte) (high << 4 | low);
+        }
+
+        long occurrences = 1;
+        if (colon >= 0) {
+            occurrences = 0;
+            for (int i = colon + 1; i < line.length(); i++) {
+                int digit = line.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return false;
+                }
+                occurrences = Math.min(Integer.MAX_VALUE, occurrences * 10 + digit);
+            }
+        }
+        putInt(chunk, offset + hashBytes, (int) Math.max(1, occurrences));
+        return true;
+    }
+
+    private void append() throws IOException {
+        if (chunkSorted && buffered > 0
+                && compareRecords(chunk, (buffered - 1) * recordBytes, chunk, buffered * recordBytes) > 0) {
+            chunkSorted = false;
+        }
+        buffered++;
+        if (buffered == chunkRecords) {
+            spill();
+        }
+    }
+
+    /**
+     * 将当前块排序后写成一个临时有序段；公开的泄露库通常已按哈希排序，此时跳过排序
+     */
+    private void spill() throws IOException {
+        if (!chunkSorted) {
+            sort(0, buffered - 1);
+        }
+        Path run = Files.createTempFile(tempDir, "breach-run", ".tmp");
+        runs.add(run);
+        try (OutputStream out = Files.newOutputStream(run)) {
+            out.write(chunk, 0, buffered * recordBytes);
+        }
+        buffered = 0;
+        chunkSorted = true;
+    }
+
+    private long merge(OutputStream out, long[] bucketCounts) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(Math.max(1, runs.size()),
+                (a, b) -> compareRecords(a.record, 0, b.record, 0));
+        List<RunReader> readers = new ArrayList<>(runs.size());
+        try {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run, recordBytes);
+                readers.add(reader);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+
+            byte[] pending = new byte[recordBytes];
+            boolean hasPending = false;
+            long count = 0;
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                if (hasPending && compareRecords(pending, 0, reader.record, 0) == 0) {
+                    long sum = (long) getInt(pending, hashBytes) + getInt(reader.record, hashBytes);
+                    putInt(pending, hashBytes, (int) Math.min(Integer.MAX_VALUE, sum));
+                } else {
+                    if (hasPending) {
+                        out.write(pending);
+                        bucketCounts[(pending[0] & 0xff) << 8 | (pending[1] & 0xff)]++;
+                        count++;
+                    }
+                    System.arraycopy(reader.record, 0, pending, 0, recordBytes);
+                    hasPending = true;
+                }
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+            if (hasPending) {
+                out.write(pending);
+                bucketCounts[(pending[0] & 0xff) << 8 | (pending[1] & 0xff)]++;
+                count++;
+            }
+            return count;
+        } finally {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private void writeHeader(Path output, long count, long[] bucketCounts) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BreachHashIndex.RECORDS_START);
+        header.putInt(BreachHashIndex.MAGIC);
+        header.putInt(BreachHashIndex.VERSION);
+        header.putInt(algorithm.id());
+        header.putInt(hashBytes);
+        header.putLong(count);
+        long start = 0;
+        for (long bucketCount : bucketCounts) {
+            header.putLong(start);
+            start += bucketCount;
+        }
+        header.putLong(start);
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    /**
+     * 对块内定长记录做原地快速排序，小区间改用插入排序
+     */
+    private void sort(int low, int high) {
+        byte[] pivot = new byte[recordBytes];
+        byte[] temp = new byte[recordBytes];
+        while (high - low >= INSERTION_SORT_THRESHOLD) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, low) < 0) swap(mid, low, temp);
+            if (compare(high, low) < 0) swap(high, low, temp);
+            if (compare(high, mid) < 0) swap(high, mid, temp);
+            System.arraycopy(chunk, mid * recordBytes, pivot, 0, recordBytes);
+
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compareRecords(chunk, i * recordBytes, pivot, 0) < 0) i++;
+                while (compareRecords(chunk, j * recordBytes, pivot, 0) > 0) j--;
+                if (i <= j) {
+                    swap(i, j, temp);
+                    i++;
+                    j--;
+                }
+            }
+            // 递归处理较短的一侧，保证栈深度为O(log n)
+            if (j - low < high - i) {
+                sort(low, j);
+                low = i;
+            } else {
+                sort(i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(j - 1, j) > 0; j--) {
+                swap(j - 1, j, temp);
+            }
+        }
+    }
+
+    private int compare(int a, int b) {
+        return compareRecords(chunk, a * recordBytes, chunk, b * recordBytes);
+    }
+
+    private void swap(int a, int b, byte[] temp) {
+        System.arraycopy(chunk, a * recordBytes, temp, 0, recordBytes);
+        System.arraycopy(chunk, b * recordBytes, chunk, a * recordBytes, recordBytes);
+        System.arraycopy(temp, 0, chunk, b * recordBytes, recordBytes);
+    }
+
+    private int compareRecords(byte[] a, int aOffset, byte[] b, int bOffset) {
+        return Arrays.compareUnsigned(a, aOffset, aOffset + hashBytes, b, bOffset, bOffset + hashBytes);
+    }
+
+    private static int getInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) << 24 | (bytes[offset + 1] & 0xff) << 16
+                | (bytes[offset + 2] & 0xff) << 8 | (bytes[offset + 3] & 0xff);
+    }
+
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * 顺序读取一个临时有序段
+     */
+    private static final class RunReader implements AutoCloseable {
+
+        final byte[] record;
+        private final InputStream in;
+
+        RunReader(Path run, int recordBytes) throws IOException {
+            this.record = new byte[recordBytes];
+            this.in = new BufferedInputStream(Files.newInputStream(run), IO_BUFFER_BYTES);
+        }
+
+        boolean next() throws IOException {
+            int read = in.readNBytes(record, 0, record.length);
+            if (read == 0) {
+                return false;
+            }
+            if (read < record.length) {
+                throw new EOFException("临时文件不完整");
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
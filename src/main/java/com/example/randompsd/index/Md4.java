@@ -0,0 +1,85 @@
+package com.example.randompsd.index;
+
+/**
+ * MD4摘要（RFC 1320），用于计算NTLM哈希；JDK默认未提供该算法
+ */
+final class Md4 {
+
+    private Md4() {
+    }
+
+    static byte[] digest(byte[] input) {
+        int a = 0x67452301;
+        int b = 0xefcdab89;
+        int c = 0x98badcfe;
+        int d = 0x10325476;
+
+        int blocks = (input.length + 8) / 64 + 1;
+        byte[] padded = new byte[blocks * 64];
+        System.arraycopy(input, 0, padded, 0, input.length);
+        padded[input.length] = (byte) 0x80;
+        long bits = (long) input.length * 8;
+        for (int i = 0; i < 8; i++) {
+            padded[padded.length - 8 + i] = (byte) (bits >>> (8 * i));
+        }
+
+        int[] x = new int[16];
+        for (int block = 0; block < blocks; block++) {
+            for (int i = 0; i < 16; i++) {
+                int offset = block * 64 + i * 4;
+                x[i] = (padded[offset] & 0xff)
+                        | (padded[offset + 1] & 0xff) << 8
+                        | (padded[offset + 2] & 0xff) << 16
+                        | (padded[offset + 3] & 0xff) << 24;
+            }
+
+            int aa = a, bb = b, cc = c, dd = d;
+
+            for (int i = 0; i < 16; i += 4) {
+                a = Integer.rotateLeft(a + f(b, c, d) + x[i], 3);
+                d = Integer.rotateLeft(d + f(a, b, c) + x[i + 1], 7);
+                c = Integer.rotateLeft(c + f(d, a, b) + x[i + 2], 11);
+                b = Integer.rotateLeft(b + f(c, d, a) + x[i + 3], 19);
+            }
+            for (int i = 0; i < 4; i++) {
+                a = Integer.rotateLeft(a + g(b, c, d) + x[i] + 0x5a827999, 3);
+                d = Integer.rotateLeft(d + g(a, b, c) + x[i + 4] + 0x5a827999, 5);
+                c = Integer.rotateLeft(c + g(d, a, b) + x[i + 8] + 0x5a827999, 9);
+                b = Integer.rotateLeft(b + g(c, d, a) + x[i + 12] + 0x5a827999, 13);
+            }
+            int[] order = {0, 2, 1, 3};
+            for (int i : order) {
+                a = Integer.rotateLeft(a + h(b, c, d) + x[i] + 0x6ed9eba1, 3);
+                d = Integer.rotateLeft(d + h(a, b, c) + x[i + 8] + 0x6ed9eba1, 9);
+                c = Integer.rotateLeft(c + h(d, a, b) + x[i + 4] + 0x6ed9eba1, 11);
+                b = Integer.rotateLeft(b + h(c, d, a) + x[i + 12] + 0x6ed9eba1, 15);
+            }
+
+            a += aa;
+            b += bb;
+            c += cc;
+            d += dd;
+        }
+
+        byte[] digest = new byte[16];
+        int[] state = {a, b, c, d};
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                digest[i * 4 + j] = (byte) (state[i] >>> (8 * j));
+            }
+        }
+        return digest;
+    }
+
+    private static int f(int x, int y, int z) {
+        return (x & y) | (~x & z);
+    }
+
+    private static int g(int x, int y, int z) {
+        return (x & y) | (x & z) | (y & z);
+    }
+
+    private static int h(int x, int y, int z) {
+        return x ^ y ^ z;
+    }
+}
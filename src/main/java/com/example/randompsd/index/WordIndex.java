@@ -0,0 +1,125 @@
+package com.example.randompsd.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 只读的有序词典索引，数据直接从内存映射的二进制文件中读取，不在堆上创建字符串
+ * 文件格式（大端序）：
+ * <pre>
+ * int magic | int version | int count | int maxWordLength
+ * int[count + 1] offsets   每个词在数据区中的起始位置，最后一项为数据区长度
+ * int[count]     ranks     词的频率排名（从1开始，越小越常见）
+ * byte[]         data      按字节序排序后依次拼接的小写ASCII词
+ * </pre>
+ * 由 {@link WordIndexCompiler} 生成
+ */
+public final class WordIndex {
+
+    static final int MAGIC = 0x52505744; // "RPWD"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    /** 查询串不是任何词的前缀，继续延长也不会命中 */
+    public static final int NO_PREFIX = -2;
+    /** 查询串不是完整的词，但是某些词的前缀 */
+    public static final int PREFIX_ONLY = -1;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int maxWordLength;
+    private final int offsetsStart;
+    private final int ranksStart;
+    private final int dataStart;
+
+    private WordIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("不是有效的词典索引文件");
+        }
+        this.count = buffer.getInt(8);
+        this.maxWordLength = buffer.getInt(12);
+        this.offsetsStart = HEADER_BYTES;
+        this.ranksStart = offsetsStart + (count + 1) * Integer.BYTES;
+        this.dataStart = ranksStart + count * Integer.BYTES;
+    }
+
+    public static WordIndex map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new WordIndex(buffer);
+        }
+    }
+
+    public static WordIndex wrap(ByteBuffer buffer) {
+        return new WordIndex(buffer);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int maxWordLength() {
+        return maxWordLength;
+    }
+
+    /**
+     * 查找chars[from, to)对应的词
+     * @return 命中时返回频率排名；未命中时返回 {@link #PREFIX_ONLY} 或 {@link #NO_PREFIX}
+     */
+    public int find(char[] chars, int from, int to) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(mid, chars, from, to) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == count) {
+            return NO_PREFIX;
+        }
+
+        int cmp = compare(low, chars, from, to);
+        if (cmp == 0) {
+            return buffer.getInt(ranksStart + low * Integer.BYTES);
+        }
+        return startsWith(low, chars, from, to) ? PREFIX_ONLY : NO_PREFIX;
+    }
+
+    private int compare(int index, char[] chars, int from, int to) {
+        int start = dataStart + buffer.getInt(offsetsStart + index * Integer.BYTES);
+        int end = dataStart + buffer.getInt(offsetsStart + (index + 1) * Integer.BYTES);
+        int length = to - from;
+        int wordLength = end - start;
+        int common = Math.min(length, wordLength);
+        for (int i = 0; i < common; i++) {
+            int diff = (buffer.get(start + i) & 0xff) - chars[from + i];
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return wordLength - length;
+    }
+
+    private boolean startsWith(int index, char[] chars, int from, int to) {
+        int start = dataStart + buffer.getInt(offsetsStart + index * Integer.BYTES);
+        int end = dataStart + buffer.getInt(offsetsStart + (index + 1) * Integer.BYTES);
+        int length = to - from;
+        if (end - start < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if ((buffer.get(start + i) & 0xff) != chars[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
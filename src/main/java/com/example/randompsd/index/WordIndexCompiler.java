@@ -0,0 +1,132 @@
+package com.example.randompsd.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 将按常见程度排序的词表（每行一个词）编译为 {@link WordIndex} 二进制文件
+ * 用法：java -cp app.jar com.example.randompsd.index.WordIndexCompiler &lt;输出文件&gt; &lt;词表&gt; [词表...]
+ * 多个词表中的同一个词取最靠前的排名；只保留长度不小于3的可打印ASCII词
+ */
+public final class WordIndexCompiler {
+
+    static final int MIN_WORD_LENGTH = 3;
+
+    private final Map<String, Integer> ranks = new HashMap<>();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: WordIndexCompiler <输出文件> <词表> [词表...]");
+            System.exit(1);
+        }
+        WordIndexCompiler compiler = new WordIndexCompiler();
+        for (int i = 1; i < args.length; i++) {
+            try (InputStream in = Files.newInputStream(Path.of(args[i]))) {
+                compiler.addList(in);
+            }
+        }
+        Path output = Path.of(args[0]);
+        compiler.writeTo(output);
+        System.out.println("已写入 " + compiler.ranks.size() + " 个词到 " + output);
+    }
+
+    /**
+     * 读取一个词表，词的排名为其在表中的行号
+     */
+    public void addList(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        int rank = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String word = line.trim().toLowerCase(Locale.ROOT);
+            if (word.isEmpty() || word.startsWith("#")) {
+                continue;
+            }
+            rank++;
+            if (isIndexable(word)) {
+                ranks.merge(word, rank, Math::min);
+            }
+        }
+    }
+
+    public ByteBuffer compile() {
+        List<byte[]> words = new ArrayList<>(ranks.size());
+        for (String word : ranks.keySet()) {
+            words.add(word.getBytes(StandardCharsets.US_ASCII));
+        }
+        words.sort(WordIndexCompiler::compareBytes);
+
+        int dataLength = 0;
+        int maxWordLength = 0;
+        for (byte[] word : words) {
+            dataLength += word.length;
+            maxWordLength = Math.max(maxWordLength, word.length);
+        }
+
+        int count = words.size();
+        ByteBuffer buffer = ByteBuffer.allocate(WordIndex.HEADER_BYTES
+                + (count + 1) * Integer.BYTES + count * Integer.BYTES + dataLength);
+        buffer.putInt(WordIndex.MAGIC).putInt(WordIndex.VERSION).putInt(count).putInt(maxWordLength);
+
+        int offset = 0;
+        for (byte[] word : words) {
+            buffer.putInt(offset);
+            offset += word.length;
+        }
+        buffer.putInt(offset);
+        for (byte[] word : words) {
+            buffer.putInt(ranks.get(new String(word, StandardCharsets.US_ASCII)));
+        }
+        for (byte[] word : words) {
+            buffer.put(word);
+        }
+        return buffer.flip();
+    }
+
+    public void writeTo(Path output) throws IOException {
+        ByteBuffer buffer = compile();
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static boolean isIndexable(String word) {
+        if (word.length() < MIN_WORD_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c <= ' ' || c > '~') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            int diff = (a[i] & 0xff) - (b[i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.randompsd.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * 口令短语词表，所有词依次拼接存放在一个char[]中，用偏移数组定位，不为每个词创建String
+ * 支持每行一个词的纯词表，以及EFF/Diceware格式（"骰子编号 词"，取每行最后一列）。
+ * 空行和以#开头的行被忽略，词统一转为小写并去重，保证每个词被抽中的概率相同
+ */
+public final class WordList {
+
+    private final char[] chars;
+    private final int[] offsets;
+
+    private WordList(char[] chars, int[] offsets) {
+        this.chars = chars;
+        this.offsets = offsets;
+    }
+
+    public static WordList load(InputStream in) throws IOException {
+        TreeSet<String> words = new TreeSet<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split("\\s+");
+            words.add(columns[columns.length - 1].toLowerCase(Locale.ROOT));
+        }
+        if (words.size() < 2) {
+            throw new IllegalArgumentException("词表至少需要2个不同的词");
+        }
+
+        // 读取阶段的String在构建完成后即可回收，常驻内存的只有两个数组
+        List<String> sorted = new ArrayList<>(words);
+        int total = 0;
+        for (String word : sorted) {
+            total += word.length();
+        }
+        char[] chars = new char[total];
+        int[] offsets = new int[sorted.size() + 1];
+        int position = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            String word = sorted.get(i);
+            offsets[i] = position;
+            word.getChars(0, word.length(), chars, position);
+            position += word.length();
+        }
+        offsets[sorted.size()] = position;
+        return new WordList(chars, offsets);
+    }
+
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * 最长的词的长度
+     */
+    public int maxLength() {
+        int max = 0;
+        for (int i = 0; i < size(); i++) {
+            max = Math.max(max, length(i));
+        }
+        return max;
+    }
+
+    public int length(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * 将第index个词复制到目标数组
+     * @return 复制后的下一个写入位置
+     */
+    public int copyTo(int index, char[] target, int position) {
+        int length = length(index);
+        System.arraycopy(chars, offsets[index], target, position, length);
+        return position + length;
+    }
+
+    /**
+     * 每个均匀抽取的词提供的熵（位）
+     */
+    public double bitsPerWord() {
+        return Math.log(size()) / Math.log(2);
+    }
+}
@@ -8,10 +8,19 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
+@Table(name = "password_history", indexes = {
+        // 键集分页按 (created_at, id) 倒序扫描，索引覆盖过滤和排序列，避免对整个历史排序
+        @Index(name = "idx_history_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_history_created", columnList = "created_at, id")
+})
 public class PasswordHistory {
+    // password列的长度，生成前据此拒绝可能超长的参数，避免插入时失败
+    public static final int MAX_PASSWORD_LENGTH = 255;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+    @Column(length = MAX_PASSWORD_LENGTH)
     private String password;
     private int length;
     private boolean useUpper;
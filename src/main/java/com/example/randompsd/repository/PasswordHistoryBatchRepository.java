@@ -0,0 +1,87 @@
+package com.example.randompsd.repository;
+
+import com.example.randompsd.model.PasswordHistory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 密码历史记录的批量写入
+ * 主键使用IDENTITY策略时Hibernate无法合并INSERT，这里直接走JDBC批处理
+ */
+@Repository
+public class PasswordHistoryBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO password_history "
+            + "(password, length, use_upper, use_digits, use_special, created_at, user_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 批量插入密码历史记录，并回填自增主键
+     * 整批在一个事务中写入，失败时整批回滚，调用方可以安全地重试
+     * @param histories 待插入的记录（未设置创建时间的记录使用当前时间）
+     * @return 插入的记录数
+     */
+    @Transactional
+    public int insertAll(List<PasswordHistory> histories) {
+        if (histories.isEmpty()) {
+            return 0;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PasswordHistory history = histories.get(i);
+                        if (history.getCreatedAt() == null) {
+                            history.setCreatedAt(LocalDateTime.now());
+                        }
+                        ps.setString(1, history.getPassword());
+                        ps.setInt(2, history.getLength());
+                        ps.setBoolean(3, history.isUseUpper());
+                        ps.setBoolean(4, history.isUseDigits());
+                        ps.setBoolean(5, history.isUseSpecial());
+                        ps.setTimestamp(6, Timestamp.valueOf(history.getCreatedAt()));
+                        if (history.getUser() != null) {
+                            ps.setLong(7, history.getUser().getId());
+                        } else {
+                            ps.setNull(7, Types.BIGINT);
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return histories.size();
+                    }
+                },
+                keyHolder);
+
+        // MySQL驱动对合并后的批量INSERT按行返回自增主键
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() == histories.size()) {
+            for (int i = 0; i < keys.size(); i++) {
+                Object key = keys.get(i).values().iterator().next();
+                histories.get(i).setId(((Number) key).longValue());
+            }
+        }
+        return histories.size();
+    }
+}
@@ -1,15 +1,50 @@
 package com.example.randompsd.repository;
 
+import com.example.randompsd.dto.PasswordHistoryView;
 import com.example.randompsd.model.PasswordHistory;
-import com.example.randompsd.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface PasswordHistoryRepository extends JpaRepository<PasswordHistory, Long> {
-    List<PasswordHistory> findTop10ByOrderByCreatedAtDesc();
-    List<PasswordHistory> findByUserOrderByCreatedAtDesc(User user);
-    List<PasswordHistory> findTop10ByUserOrderByCreatedAtDesc(User user);
+
+    String VIEW = "select new com.example.randompsd.dto.PasswordHistoryView("
+            + "h.id, h.password, h.length, h.useUpper, h.useDigits, h.useSpecial, h.createdAt)"
+            + " from PasswordHistory h";
+
+    /**
+     * 按 (created_at, id) 倒序的键集分页，首页
+     */
+    @Query(VIEW + " order by h.createdAt desc, h.id desc")
+    List<PasswordHistoryView> findPage(Limit limit);
+
+    /**
+     * 按 (created_at, id) 倒序的键集分页，返回游标之后的记录
+     */
+    @Query(VIEW + " where h.createdAt < :createdAt or (h.createdAt = :createdAt and h.id < :id)"
+            + " order by h.createdAt desc, h.id desc")
+    List<PasswordHistoryView> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                            Limit limit);
+
+    /**
+     * 用户历史记录的键集分页，首页，走 (user_id, created_at, id) 索引
+     */
+    @Query(VIEW + " where h.user.id = :userId order by h.createdAt desc, h.id desc")
+    List<PasswordHistoryView> findPageByUserId(@Param("userId") Long userId, Limit limit);
+
+    /**
+     * 用户历史记录的键集分页，返回游标之后的记录
+     */
+    @Query(VIEW + " where h.user.id = :userId"
+            + " and (h.createdAt < :createdAt or (h.createdAt = :createdAt and h.id < :id))"
+            + " order by h.createdAt desc, h.id desc")
+    List<PasswordHistoryView> findPageByUserIdAfter(@Param("userId") Long userId,
+                                                    @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") Long id, Limit limit);
 }
@@ -0,0 +1,105 @@
+package com.example.randompsd.repository;
+
+import com.example.randompsd.dto.HistoryCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 密码历史记录的分块清理
+ * 每次只按索引顺序取一小块记录，再按主键删除，单条语句持有的行锁少且时间短
+ */
+@Repository
+public class PasswordHistoryRetentionRepository {
+
+    private static final String COLUMNS =
+            "id, password, length, use_upper, use_digits, use_special, created_at, user_id";
+
+    // 匿名记录的user_id为NULL，用getObject区分，不能按getLong的0判断
+    static final RowMapper<HistoryRow> ROW_MAPPER = (rs, rowNum) -> new HistoryRow(
+            rs.getLong("id"),
+            rs.getString("password"),
+            rs.getInt("length"),
+            rs.getBoolean("use_upper"),
+            rs.getBoolean("use_digits"),
+            rs.getBoolean("use_special"),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getObject("user_id", Long.class));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 待清理的一行记录，归档时按原样写出
+     */
+    public record HistoryRow(long id, String password, int length, boolean useUpper, boolean useDigits,
+                             boolean useSpecial, LocalDateTime createdAt, Long userId) {
+    }
+
+    /**
+     * 取创建时间早于cutoff的最旧一块记录，走 (created_at, id) 索引
+     */
+    public List<HistoryRow> findOlderThan(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM password_history"
+                        + " WHERE created_at < ? ORDER BY created_at, id LIMIT ?",
+                ROW_MAPPER, Timestamp.valueOf(cutoff), limit);
+    }
+
+    /**
+     * 查询记录数超过上限的用户
+     */
+    public List<Long> findUsersExceeding(int maxRows) {
+        return jdbcTemplate.queryForList("SELECT user_id FROM password_history WHERE user_id IS NOT NULL"
+                + " GROUP BY user_id HAVING COUNT(*) > ?", Long.class, maxRows);
+    }
+
+    /**
+     * 按创建时间倒序跳过保留的keep条后，第一条应删除记录的位置，走 (user_id, created_at, id) 索引
+     */
+    public Optional<HistoryCursor> findUserBoundary(Long userId, int keep) {
+        List<HistoryCursor> boundary = jdbcTemplate.query("SELECT created_at, id FROM password_history"
+                        + " WHERE user_id = ? ORDER BY created_at DESC, id DESC LIMIT 1 OFFSET ?",
+                (rs, rowNum) -> new HistoryCursor(rs.getTimestamp("created_at").toLocalDateTime(), rs.getLong("id")),
+                userId, keep);
+        return boundary.stream().findFirst();
+    }
+
+    /**
+     * 取用户在boundary及之前的最旧一块记录
+     */
+    public List<HistoryRow> findUserRowsUpTo(Long userId, HistoryCursor boundary, int limit) {
+        Timestamp createdAt = Timestamp.valueOf(boundary.createdAt());
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM password_history"
+                        + " WHERE user_id = ? AND (created_at < ? OR (created_at = ? AND id <= ?))"
+                        + " ORDER BY created_at, id LIMIT ?",
+                ROW_MAPPER, userId, createdAt, createdAt, boundary.id(), limit);
+    }
+
+    /**
+     * 按主键删除
+     * @return 删除的记录数
+     */
+    public int deleteByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.update("DELETE FROM password_history WHERE id IN (" + placeholders + ")",
+                ids.toArray());
+    }
+
+    /**
+     * 最旧一条记录的创建时间
+     */
+    public Optional<LocalDateTime> findOldestCreatedAt() {
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM password_history", Timestamp.class);
+        return Optional.ofNullable(oldest).map(Timestamp::toLocalDateTime);
+    }
+}
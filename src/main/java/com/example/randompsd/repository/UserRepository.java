@@ -1,9 +1,16 @@
 package com.example.randompsd.repository;
 
+import com.example.randompsd.dto.UserKeysView;
 import com.example.randompsd.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +19,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    /**
+     * 按主键顺序的键集分页读取用户名和邮箱，只查询两列，不加载实体
+     */
+    @Query("select new com.example.randompsd.dto.UserKeysView(u.id, u.username, u.email)"
+            + " from User u where u.id > :afterId order by u.id")
+    List<UserKeysView> findKeysAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * 仅当密码哈希仍为旧值时更新，避免覆盖并发修改的密码
+     * @return 更新的行数
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :newHash where u.id = :id and u.password = :oldHash")
+    int updatePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
@@ -0,0 +1,118 @@
+package com.example.randompsd.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * 认证相关热路径的计数器和计时器：JWT校验结果、BCrypt运算、用户信息查询
+ */
+@Component
+public class AuthMetrics {
+
+    /**
+     * JWT校验结果
+     */
+    public enum JwtOutcome {
+        CACHED, VERIFIED, MISSING, MALFORMED, EXPIRED, UNSUPPORTED, EMPTY_CLAIMS, INVALID;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final Counter[] jwtOutcomes;
+    private final Timer jwtParse;
+    private final Timer bcryptEncode;
+    private final Timer bcryptMatches;
+    private final Counter bcryptRejected;
+    private final Counter availabilityFiltered;
+    private final Counter availabilityDatabase;
+    private final Timer userLookupHit;
+    private final Timer userLookupMiss;
+    private final Timer userLookupNotFound;
+
+    public AuthMetrics(MeterRegistry registry) {
+        JwtOutcome[] outcomes = JwtOutcome.values();
+        jwtOutcomes = new Counter[outcomes.length];
+        for (JwtOutcome outcome : outcomes) {
+            jwtOutcomes[outcome.ordinal()] = Counter.builder("auth.jwt.verifications")
+                    .description("JWT校验次数")
+                    .tag("outcome", outcome.tag)
+                    .register(registry);
+        }
+        jwtParse = Timer.builder("auth.jwt.parse")
+                .description("未命中缓存时JWT解析与签名校验耗时")
+                .register(registry);
+        bcryptEncode = bcryptTimer(registry, "encode");
+        bcryptMatches = bcryptTimer(registry, "matches");
+        bcryptRejected = Counter.builder("auth.bcrypt.rejected")
+                .description("队列已满被拒绝的BCrypt运算次数")
+                .register(registry);
+        availabilityFiltered = availabilityCounter(registry, "filtered");
+        availabilityDatabase = availabilityCounter(registry, "database");
+        userLookupHit = userLookupTimer(registry, "hit");
+        userLookupMiss = userLookupTimer(registry, "miss");
+        userLookupNotFound = userLookupTimer(registry, "not_found");
+    }
+
+    private static Timer bcryptTimer(MeterRegistry registry, String operation) {
+        return Timer.builder("auth.bcrypt")
+                .description("BCrypt运算耗时")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private static Counter availabilityCounter(MeterRegistry registry, String source) {
+        return Counter.builder("auth.availability.checks")
+                .description("用户名和邮箱可用性检查次数")
+                .tag("source", source)
+                .register(registry);
+    }
+
+    private static Timer userLookupTimer(MeterRegistry registry, String result) {
+        return Timer.builder("auth.user.lookup")
+                .description("认证用户信息查询耗时")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public void jwtOutcome(JwtOutcome outcome) {
+        jwtOutcomes[outcome.ordinal()].increment();
+    }
+
+    public Timer jwtParse() {
+        return jwtParse;
+    }
+
+    public Timer bcryptEncode() {
+        return bcryptEncode;
+    }
+
+    public Timer bcryptMatches() {
+        return bcryptMatches;
+    }
+
+    public void bcryptRejected() {
+        bcryptRejected.increment();
+    }
+
+    /**
+     * @param database 是否查询了数据库（布隆过滤器判定可能存在，或索引尚未加载完成）
+     */
+    public void availabilityCheck(boolean database) {
+        (database ? availabilityDatabase : availabilityFiltered).increment();
+    }
+
+    /**
+     * @param cached 是否命中用户信息缓存
+     * @param found 用户是否存在
+     */
+    public Timer userLookup(boolean cached, boolean found) {
+        if (cached) {
+            return userLookupHit;
+        }
+        return found ? userLookupMiss : userLookupNotFound;
+    }
+}
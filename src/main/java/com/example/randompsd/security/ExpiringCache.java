@@ -0,0 +1,110 @@
+package com.example.randompsd.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界的过期缓存
+ * 每个条目带有自己的过期时间，读取时惰性清除过期条目；
+ * 达到容量上限时先清理过期条目，仍不足则淘汰部分条目为新条目腾出空间
+ */
+public final class ExpiringCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<V>> entries;
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+    }
+
+    /**
+     * 读取未过期的缓存值
+     * @param key 键
+     * @return 缓存值，不存在或已过期时返回null
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * 写入缓存
+     * @param key 键
+     * @param value 值
+     * @param expiresAt 过期时间（毫秒时间戳）
+     */
+    public void put(K key, V value, long expiresAt) {
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(key, new Entry<>(value, expiresAt));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry<V>> expired = entries.values().iterator();
+        while (expired.hasNext()) {
+            if (expired.next().expiresAt <= now) {
+                expired.remove();
+                evictions.increment();
+            }
+        }
+
+        // 仍然超出上限时淘汰约十分之一的条目，避免每次写入都触发清理
+        int excess = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (excess > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+            excess--;
+        }
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
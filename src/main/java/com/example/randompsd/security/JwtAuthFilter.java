@@ -1,6 +1,6 @@
 package com.example.randompsd.security;
 
-import com.example.randompsd.service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,6 +15,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
@@ -30,15 +31,19 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+            Optional<Claims> claims = jwtUtils.verifyAndParse(jwt);
+            if (claims.isPresent()) {
+                String username = claims.get().getSubject();
 
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                // 令牌中的用户ID与当前同名用户不一致（用户已被删除后重建）时不予认证
+                if (matchesUserId(claims.get(), userDetails)) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception e) {
             logger.error("无法设置用户认证: {}", e);
@@ -47,6 +52,15 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private boolean matchesUserId(Claims claims, UserDetails userDetails) {
+        Number tokenUserId = claims.get(JwtUtils.CLAIM_USER_ID, Number.class);
+        if (tokenUserId == null || !(userDetails instanceof AuthenticatedUser authenticatedUser)) {
+            // 旧版本签发的令牌不含用户ID，按用户名认证
+            return true;
+        }
+        return authenticatedUser.getId() != null && authenticatedUser.getId() == tokenUserId.longValue();
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -1,61 +1,149 @@
 package com.example.randompsd.security;
 
 import com.example.randompsd.model.User;
+import com.example.randompsd.security.AuthMetrics.JwtOutcome;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtils {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtUtils.class);
+
+    @Autowired
+    private AuthMetrics authMetrics;
+
     @Value("${jwt.secret:defaultSecretKeyNeedsToBeAtLeast32BytesLongForHS256Algorithm}")
     private String jwtSecret;
 
     @Value("${jwt.expiration:86400000}")
     private int jwtExpirationMs;
 
+    public static final String CLAIM_USER_ID = "uid";
+
+    @Value("${jwt.cache.max-size:10000}")
+    private int verifiedTokenCacheSize;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(JwtUtils::newSha256);
+
+    private SecretKey key;
+    private JwtParser parser;
+
+    // 已验证令牌缓存：键为令牌的SHA-256摘要，条目在令牌exp时刻过期
+    private ExpiringCache<TokenDigest, Claims> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        verifiedTokens = new ExpiringCache<>(verifiedTokenCacheSize);
+    }
+
     public String generateJwtToken(User user) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-        
         return Jwts.builder()
                 .setSubject(user.getUsername())
+                .claim(CLAIM_USER_ID, user.getId())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-        
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
+    /**
+     * 验证令牌并解析声明
+     * 最近验证过且未过期的令牌直接从缓存返回，不再重复解析和计算HMAC
+     * @param token JWT令牌
+     * @return 验证通过时返回令牌声明，否则返回空
+     */
+    public Optional<Claims> verifyAndParse(String token) {
+        if (token == null || token.isEmpty()) {
+            authMetrics.jwtOutcome(JwtOutcome.MISSING);
+            return Optional.empty();
+        }
 
-    public boolean validateJwtToken(String authToken) {
+        TokenDigest digest = TokenDigest.of(token);
+        Claims cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            authMetrics.jwtOutcome(JwtOutcome.CACHED);
+            return Optional.of(cached);
+        }
+
+        long start = System.nanoTime();
+        JwtOutcome outcome = JwtOutcome.INVALID;
         try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
-            return true;
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Date expiration = claims.getExpiration();
+            if (expiration != null) {
+                verifiedTokens.put(digest, claims, expiration.getTime());
+            }
+            outcome = JwtOutcome.VERIFIED;
+            return Optional.of(claims);
         } catch (MalformedJwtException e) {
-            System.err.println("无效的JWT令牌: " + e.getMessage());
+            outcome = JwtOutcome.MALFORMED;
+            log.debug("无效的JWT令牌: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
-            System.err.println("JWT令牌已过期: " + e.getMessage());
+            outcome = JwtOutcome.EXPIRED;
+            log.debug("JWT令牌已过期: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
-            System.err.println("不支持的JWT令牌: " + e.getMessage());
+            outcome = JwtOutcome.UNSUPPORTED;
+            log.debug("不支持的JWT令牌: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
-            System.err.println("JWT声明为空: " + e.getMessage());
+            outcome = JwtOutcome.EMPTY_CLAIMS;
+            log.debug("JWT声明为空: {}", e.getMessage());
+        } catch (JwtException e) {
+            log.debug("JWT令牌校验失败: {}", e.getMessage());
+        } finally {
+            authMetrics.jwtParse().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            authMetrics.jwtOutcome(outcome);
         }
 
-        return false;
+        return Optional.empty();
+    }
+
+    public String getUserNameFromJwtToken(String token) {
+        return verifyAndParse(token)
+                .map(Claims::getSubject)
+                .orElseThrow(() -> new JwtException("JWT令牌无效"));
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return verifyAndParse(authToken).isPresent();
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 令牌的SHA-256摘要，作为缓存键避免在内存中保存令牌原文
+     * 按UTF-8编码，不同的非ASCII输入不会被替换成相同的'?'而得到相同的键
+     */
+    record TokenDigest(long d0, long d1, long d2, long d3) {
+
+        static TokenDigest of(String token) {
+            // 虚拟线程不复用，线程内缓存只会增加ThreadLocalMap开销
+            MessageDigest sha256 = Thread.currentThread().isVirtual() ? newSha256() : SHA256.get();
+            ByteBuffer digest = ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+            return new TokenDigest(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+        }
     }
 }
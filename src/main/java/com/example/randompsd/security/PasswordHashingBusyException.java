@@ -0,0 +1,18 @@
+package com.example.randompsd.security;
+
+/**
+ * BCrypt运算队列已满时抛出，调用方应返回429并提示客户端稍后重试
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public PasswordHashingBusyException(int retryAfterSeconds) {
+        super("服务繁忙，请稍后重试");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.randompsd.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 生成、批量生成、登录注册、强度评估和注册可用性检查接口的进程内限流
+ * 位于JwtAuthFilter之后：所有请求按客户端IP限流，已登录的请求还要同时通过按用户ID的限流，
+ * 一个账号不能借多个IP绕过限制，一个IP也不能借多个账号绕过限制。
+ * 可用性检查限制GET请求（防止枚举已注册的用户名和邮箱），其余接口限制POST请求，CORS预检请求不消耗令牌；
+ * 路径按解码、去除分号参数后的形式匹配，与Spring MVC路由一致，百分号编码的路径不能绕过限流；
+ * 超出限制时返回429并带Retry-After。
+ * 部署在反向代理之后时需配置server.forward-headers-strategy，使getRemoteAddr返回真实客户端地址。
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String HEADER_LIMIT = "X-RateLimit-Limit";
+    private static final String HEADER_REMAINING = "X-RateLimit-Remaining";
+
+    private static final byte[] REJECTED_BODY =
+            "{\"error\":\"请求过于频繁，请稍后重试\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.generate.capacity:60}")
+    private int generateCapacity;
+
+    @Value("${rate-limit.generate.permits-per-second:10}")
+    private double generatePermitsPerSecond;
+
+    // 批量生成一次最多返回password.batch.max-count个密码，单独按请求数限制
+    @Value("${rate-limit.batch.capacity:2}")
+    private int batchCapacity;
+
+    @Value("${rate-limit.batch.permits-per-second:0.02}")
+    private double batchPermitsPerSecond;
+
+    @Value("${rate-limit.auth.capacity:10}")
+    private int authCapacity;
+
+    @Value("${rate-limit.auth.permits-per-second:0.5}")
+    private double authPermitsPerSecond;
+
+    @Value("${rate-limit.evaluate.capacity:30}")
+    private int evaluateCapacity;
+
+    @Value("${rate-limit.evaluate.permits-per-second:5}")
+    private double evaluatePermitsPerSecond;
+
+    @Value("${rate-limit.availability.capacity:20}")
+    private int availabilityCapacity;
+
+    @Value("${rate-limit.availability.permits-per-second:1}")
+    private double availabilityPermitsPerSecond;
+
+    private Rule generateRule;
+    private Rule batchRule;
+    private Rule authRule;
+    private Rule evaluateRule;
+    private Rule availabilityRule;
+
+    /**
+     * 一条限流规则及其拒绝计数
+     */
+    private record Rule(RateLimiter limiter, Counter rejected) {
+    }
+
+    @PostConstruct
+    public void init() {
+        generateRule = rule(new RateLimiter("generate", generateCapacity, generatePermitsPerSecond));
+        batchRule = rule(new RateLimiter("batch", batchCapacity, batchPermitsPerSecond));
+        authRule = rule(new RateLimiter("auth", authCapacity, authPermitsPerSecond));
+        evaluateRule = rule(new RateLimiter("evaluate", evaluateCapacity, evaluatePermitsPerSecond));
+        availabilityRule = rule(new RateLimiter("availability", availabilityCapacity, availabilityPermitsPerSecond));
+    }
+
+    private Rule rule(RateLimiter limiter) {
+        Counter rejected = Counter.builder("http.rate_limit.rejected")
+                .description("被限流拒绝的请求数")
+                .tag("rule", limiter.name())
+                .register(meterRegistry);
+        return new Rule(limiter, rejected);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    /**
+     * 按请求方法和路径匹配规则
+     * @return 匹配的规则，不限流的请求返回null
+     */
+    private Rule match(String method, String path) {
+        if ("GET".equals(method)) {
+            return "/api/auth/availability".equals(path) ? availabilityRule : null;
+        }
+        if (!"POST".equals(method)) {
+            return null;
+        }
+        return switch (path) {
+            case "/api/generate" -> generateRule;
+            case "/api/generate/batch" -> batchRule;
+            case "/api/auth/login", "/api/auth/register" -> authRule;
+            case "/api/evaluate" -> evaluateRule;
+            default -> null;
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // 与DispatcherServlet路由使用相同的解码规则，/api/%67enerate按/api/generate匹配
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        Rule rule = match(request.getMethod(), path);
+        if (rule == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RateLimiter limiter = rule.limiter();
+        long now = System.nanoTime();
+        // 先取IP桶：IP桶拒绝时不再消耗用户桶的令牌；IP桶放行而用户桶拒绝时，IP桶已取的令牌不退回
+        long result = limiter.tryAcquire(request.getRemoteAddr(), now);
+        Long userId = userId();
+        if (result >= 0 && userId != null) {
+            long userResult = limiter.tryAcquire(userId, now);
+            result = userResult < 0 ? userResult : Math.min(result, userResult);
+        }
+        response.setHeader(HEADER_LIMIT, String.valueOf(limiter.capacity()));
+        if (result >= 0) {
+            response.setHeader(HEADER_REMAINING, String.valueOf(result));
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        rule.rejected().increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HEADER_REMAINING, "0");
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(RateLimiter.retryAfterSeconds(-result)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentLength(REJECTED_BODY.length);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+
+    /**
+     * 已登录用户的ID（Long），与IP（String）共用同一个限流器，两种类型的键不会相等
+     * @return 未登录时返回null
+     */
+    private static Long userId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+        return null;
+    }
+
+    /**
+     * 定期清理桶已满的键，空闲客户端不会长期占用内存
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.idle-sweep-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        generateRule.limiter().evictIdle(now);
+        batchRule.limiter().evictIdle(now);
+        authRule.limiter().evictIdle(now);
+        evaluateRule.limiter().evictIdle(now);
+        availabilityRule.limiter().evictIdle(now);
+    }
+}
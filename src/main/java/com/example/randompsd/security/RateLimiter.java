@@ -0,0 +1,89 @@
+package com.example.randompsd.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按键（IP或用户ID）限流的令牌桶，用GCRA（通用信元速率算法）实现
+ * 每个键只保存一个AtomicLong：下一次请求的理论到达时间（TAT）。允许请求时以CAS把TAT推后一个发放间隔，
+ * 桶满时TAT不晚于当前时间。与逐次补充令牌的写法等价，但无需锁和定时补充，一次请求只有一次Map查找和一次CAS。
+ * 桶满的键与新键等价，可随时删除，{@link #evictIdle(long)} 据此清理空闲键。
+ */
+public final class RateLimiter {
+
+    private final String name;
+    private final int capacity;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final ConcurrentHashMap<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param name 规则名称，用于日志和指标
+     * @param capacity 桶容量，即允许的突发请求数
+     * @param permitsPerSecond 每秒补充的令牌数
+     */
+    public RateLimiter(String name, int capacity, double permitsPerSecond) {
+        if (capacity <= 0 || permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("限流规则" + name + "的容量和速率必须大于0");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.emissionIntervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 尝试取一个令牌
+     * @param key 限流键
+     * @param now 当前时间（System.nanoTime）
+     * @return 不小于0时表示允许，值为剩余令牌数；小于0时表示拒绝，绝对值为需要等待的纳秒数
+     */
+    public long tryAcquire(Object key, long now) {
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            tat = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        }
+        while (true) {
+            long current = tat.get();
+            long start = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long next = start + emissionIntervalNanos;
+            long ahead = next - now;
+            if (ahead - emissionIntervalNanos > burstToleranceNanos) {
+                return -(ahead - emissionIntervalNanos - burstToleranceNanos);
+            }
+            if (tat.compareAndSet(current, next)) {
+                return (burstToleranceNanos + emissionIntervalNanos - ahead) / emissionIntervalNanos;
+            }
+        }
+    }
+
+    /**
+     * 把拒绝时的等待纳秒数换算为Retry-After的秒数，向上取整且至少为1秒
+     */
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+
+    /**
+     * 删除桶已满（TAT不晚于当前时间）的键
+     * @return 删除的键数
+     */
+    public int evictIdle(long now) {
+        int before = buckets.size();
+        buckets.values().removeIf(tat -> tat.get() == Long.MIN_VALUE || tat.get() - now <= 0);
+        return Math.max(0, before - buckets.size());
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.randompsd.security;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户认证信息的进程内缓存
+ * 热点用户的认证只需一次内存查找；用户注册、修改密码等账户变更时需调用invalidate使缓存失效
+ */
+@Component
+public class UserDetailsCache {
+
+    @Value("${security.user-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${security.user-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private ExpiringCache<String, UserDetails> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = new ExpiringCache<>(maxSize);
+    }
+
+    public UserDetails get(String username) {
+        return ttlMs > 0 ? cache.get(username) : null;
+    }
+
+    public void put(UserDetails userDetails) {
+        if (ttlMs > 0) {
+            cache.put(userDetails.getUsername(), userDetails, System.currentTimeMillis() + ttlMs);
+        }
+    }
+
+    /**
+     * 使指定用户的缓存失效
+     * @param username 用户名
+     */
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public ExpiringCache.Stats stats() {
+        return cache.stats();
+    }
+}
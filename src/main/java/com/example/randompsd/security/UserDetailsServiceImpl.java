@@ -7,9 +7,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
@@ -17,15 +17,35 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private AuthMetrics authMetrics;
+
+    // 不开启事务：缓存命中时无需获取数据库连接，查询本身由仓库方法的只读事务完成
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("未找到用户: " + username));
+        long start = System.nanoTime();
+        UserDetails cached = userDetailsCache.get(username);
+        if (cached != null) {
+            authMetrics.userLookup(true, true).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+
+        User user = userRepository.findByUsername(username).orElse(null);
+        if (user == null) {
+            authMetrics.userLookup(false, false).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw new UsernameNotFoundException("未找到用户: " + username);
+        }
 
-        return new org.springframework.security.core.userdetails.User(
+        UserDetails userDetails = new AuthenticatedUser(
+                user.getId(),
                 user.getUsername(),
                 user.getPassword(),
                 Collections.emptyList());
+        userDetailsCache.put(userDetails);
+        authMetrics.userLookup(false, true).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return userDetails;
     }
 }
@@ -0,0 +1,21 @@
+package com.example.randompsd.service;
+
+/**
+ * 离线泄露密码查询
+ * 基于本地泄露库生成的哈希索引，判断密码是否出现在已知的泄露数据中
+ */
+public interface BreachLookupService {
+
+    /**
+     * 是否已配置泄露库索引
+     * @return 未配置时所有查询都返回0
+     */
+    boolean isEnabled();
+
+    /**
+     * 查询密码在泄露库中的出现次数
+     * @param password 密码
+     * @return 出现次数，未收录时返回0
+     */
+    int breachCount(String password);
+}
@@ -0,0 +1,21 @@
+package com.example.randompsd.service;
+
+/**
+ * 安全随机数池
+ * 从SecureRandom批量拉取随机字节并缓存，供密码生成等高频场景按需取用
+ */
+public interface EntropyPool {
+
+    /**
+     * 获取64位随机数
+     * @return 随机long值
+     */
+    long nextLong();
+
+    /**
+     * 获取[0, bound)范围内均匀分布的随机整数
+     * @param bound 上界（不包含），必须为正数
+     * @return 随机整数
+     */
+    int nextInt(int bound);
+}
@@ -1,16 +1,44 @@
 package com.example.randompsd.service;
 
+import com.example.randompsd.dto.HistoryPage;
+import com.example.randompsd.dto.PasswordHistoryView;
 import com.example.randompsd.dto.PasswordRequest;
+import com.example.randompsd.dto.PasswordStrength;
 import com.example.randompsd.model.PasswordHistory;
-import com.example.randompsd.model.User;
 
 import java.util.List;
-import java.util.Map;
 
 public interface PasswordService {
     String generatePassword(int length, boolean useUpper, boolean useDigits, boolean useSpecial);
+    /**
+     * 按请求生成密码，mode为passphrase时生成口令短语，否则生成随机字符密码
+     * @param request 生成参数
+     * @return 生成的密码
+     */
     String generatePassword(PasswordRequest request);
     
+    /**
+     * 单次生成（/api/generate）：与{@link #generatePassword(PasswordRequest)}相同，
+     * 但启用密码池时无约束的随机字符请求优先取预生成的密码；批量生成不使用密码池
+     * @param request 生成参数
+     * @return 生成的密码
+     */
+    String generateSinglePassword(PasswordRequest request);
+    
+    /**
+     * 校验生成参数，不生成密码；批量生成在开始流式输出前调用
+     * @param request 生成参数
+     * @throws IllegalArgumentException 参数无效，或生成结果可能超过历史记录可保存的长度
+     */
+    void validate(PasswordRequest request);
+    
+    /**
+     * 按生成参数计算结果的熵，不生成密码
+     * @param request 生成参数
+     * @return 熵（位），保留一位小数
+     */
+    double entropyBits(PasswordRequest request);
+    
     /**
      * 保存密码历史记录
      * @param password 生成的密码
@@ -23,28 +51,61 @@ public interface PasswordService {
      * 保存密码历史记录（与用户关联）
      * @param password 生成的密码
      * @param request 生成密码的请求参数
-     * @param user 关联的用户
+     * @param userId 关联的用户ID
      * @return 密码历史记录
      */
-    PasswordHistory savePasswordHistory(String password, PasswordRequest request, User user);
+    PasswordHistory savePasswordHistory(String password, PasswordRequest request, Long userId);
+    
+    /**
+     * 批量保存密码历史记录（一次JDBC批处理写入）
+     * @param passwords 生成的密码
+     * @param request 生成密码的请求参数
+     * @param userId 关联的用户ID，未登录时为null
+     * @return 保存的记录数
+     */
+    int savePasswordHistoryBatch(List<String> passwords, PasswordRequest request, Long userId);
     
     /**
      * 获取最近生成的密码（非用户特定）
      * @return 密码历史记录列表
      */
-    List<PasswordHistory> getRecentPasswords();
+    List<PasswordHistoryView> getRecentPasswords();
     
     /**
      * 获取特定用户的密码历史记录
-     * @param user 用户
+     * @param userId 用户ID
      * @return 用户的密码历史记录列表
      */
-    List<PasswordHistory> getPasswordHistoryByUser(User user);
+    List<PasswordHistoryView> getPasswordHistoryByUser(Long userId);
+    
+    /**
+     * 获取历史记录的版本标识，历史记录有新写入或被清理后改变，不访问数据库
+     * @param userId 用户ID，为null时返回公共历史记录的版本
+     * @return 可直接用作ETag的强校验值（含引号）
+     */
+    String getHistoryETag(Long userId);
+    
+    /**
+     * 按游标分页获取密码历史记录，按创建时间倒序
+     * @param userId 用户ID，为null时返回公共历史记录
+     * @param cursor 上一页返回的游标，为空时返回首页
+     * @param size 每页条数
+     * @return 当前页记录和下一页游标
+     */
+    HistoryPage<PasswordHistoryView> getPasswordHistoryPage(Long userId, String cursor, int size);
     
     /**
      * 评估密码强度
      * @param password 待评估的密码
-     * @return 包含强度评分和评估信息的Map
+     * @return 包含强度评分和评估信息的结果
+     */
+    PasswordStrength evaluatePasswordStrength(String password);
+    
+    /**
+     * 按指定模式评估密码强度
+     * @param password 待评估的密码
+     * @param mode 评估模式：basic（默认，按字符类型和长度评分）或entropy（额外识别常见模式并估算熵）
+     * @return 包含强度评分和评估信息的结果
      */
-    Map<String, Object> evaluatePasswordStrength(String password);
+    PasswordStrength evaluatePasswordStrength(String password, String mode);
 }
@@ -47,4 +47,20 @@ public interface UserService {
      * @return 如果存在返回true，否则返回false
      */
     boolean isEmailExists(String email);
+    
+    /**
+     * 检查用户名是否可以注册，大多数情况下只查询内存索引
+     * 
+     * @param username 用户名
+     * @return 可以使用返回true
+     */
+    boolean isUsernameAvailable(String username);
+    
+    /**
+     * 检查电子邮箱是否可以注册，大多数情况下只查询内存索引
+     * 
+     * @param email 电子邮箱
+     * @return 可以使用返回true
+     */
+    boolean isEmailAvailable(String email);
 }
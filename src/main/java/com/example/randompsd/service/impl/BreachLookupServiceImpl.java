@@ -0,0 +1,49 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.index.BreachHashIndex;
+import com.example.randompsd.service.BreachLookupService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 内存映射泄露密码索引（由BreachIndexBuilder生成）的查询实现
+ * 索引只映射不加载，数亿条哈希也只占用页缓存，每次查询为一次哈希计算加一次桶内二分查找
+ */
+@Service
+public class BreachLookupServiceImpl implements BreachLookupService {
+
+    private static final Logger log = LoggerFactory.getLogger(BreachLookupServiceImpl.class);
+
+    @Value("${password.breach.index-path:}")
+    private String indexPath;
+
+    private BreachHashIndex index;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (indexPath == null || indexPath.isBlank()) {
+            return;
+        }
+        index = BreachHashIndex.map(Path.of(indexPath));
+        log.info("已加载泄露密码索引 {}，算法 {}，共 {} 个哈希", indexPath, index.algorithm(), index.size());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return index != null;
+    }
+
+    @Override
+    public int breachCount(String password) {
+        if (index == null) {
+            return 0;
+        }
+        return index.occurrences(password);
+    }
+}
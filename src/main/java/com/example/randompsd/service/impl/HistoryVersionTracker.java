@@ -0,0 +1,86 @@
+package com.example.randompsd.service.impl;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 密码历史的版本号，用于生成历史接口的ETag
+ * 全局版本在任何写入提交后递增；用户版本按用户ID散列到固定数量的计数器上，
+ * 不同用户共用一个计数器时只会多返回一次200，不会误返回304。
+ * 清理历史时递增纪元，使所有ETag失效；ETag带有启动时生成的随机值，重启后旧ETag不再匹配。
+ * 与最近记录缓冲区一样只感知本实例提交的写入。
+ */
+@Component
+public class HistoryVersionTracker {
+
+    private static final int USER_STRIPES = 4096;
+
+    private final String instanceTag;
+    private final AtomicLong epoch = new AtomicLong();
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final AtomicLongArray userVersions = new AtomicLongArray(USER_STRIPES);
+
+    public HistoryVersionTracker() {
+        byte[] nonce = new byte[6];
+        new SecureRandom().nextBytes(nonce);
+        this.instanceTag = HexFormat.of().formatHex(nonce);
+    }
+
+    /**
+     * 公共历史的ETag，须在读取数据之前获取，保证ETag不会比返回的数据新
+     */
+    public String globalETag() {
+        return "\"" + instanceTag + "-" + epoch.get() + "-g" + globalVersion.get() + "\"";
+    }
+
+    /**
+     * 用户历史的ETag，须在读取数据之前获取，保证ETag不会比返回的数据新
+     */
+    public String userETag(Long userId) {
+        return "\"" + instanceTag + "-" + epoch.get() + "-u" + userId + "-" + userVersions.get(stripe(userId)) + "\"";
+    }
+
+    /**
+     * 在当前事务提交后递增全局版本和相关用户的版本；没有事务时立即递增
+     * @param userIds 写入记录所属的用户ID，匿名记录为null
+     */
+    public void bumpAfterCommit(Collection<Long> userIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(userIds);
+                }
+            });
+        } else {
+            bump(userIds);
+        }
+    }
+
+    /**
+     * 历史记录被批量删除后调用，使所有ETag失效
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+    }
+
+    private void bump(Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            if (userId != null) {
+                userVersions.incrementAndGet(stripe(userId));
+            }
+        }
+        globalVersion.incrementAndGet();
+    }
+
+    private static int stripe(Long userId) {
+        return (Long.hashCode(userId) & 0x7fffffff) % USER_STRIPES;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.index.WordList;
+import com.example.randompsd.service.EntropyPool;
+
+import java.util.Arrays;
+
+/**
+ * Diceware风格的口令短语生成
+ * 每个词用EntropyPool.nextInt(词数)无偏抽取，随机源为SecureRandom；
+ * 结果先写入一次分配的字符数组，生成String后清零
+ */
+public final class PassphraseGenerator {
+
+    private static final double LOG2 = Math.log(2);
+
+    private final EntropyPool entropyPool;
+    private final WordList words;
+
+    private final int maxWordLength;
+
+    public PassphraseGenerator(EntropyPool entropyPool, WordList words) {
+        this.entropyPool = entropyPool;
+        this.words = words;
+        this.maxWordLength = words.maxLength();
+    }
+
+    /**
+     * 按参数生成的口令短语可能达到的最大长度（每个词都取最长的词）
+     */
+    public int maxLength(int wordCount, int separatorLength, boolean injectDigit) {
+        return wordCount * maxWordLength + separatorLength * (wordCount - 1) + (injectDigit ? 1 : 0);
+    }
+
+    /**
+     * @param wordCount 词数
+     * @param separator 词之间的分隔符
+     * @param capitalize 每个词首字母大写
+     * @param injectDigit 在随机选中的一个词后插入一位随机数字
+     */
+    public String generate(int wordCount, String separator, boolean capitalize, boolean injectDigit) {
+        int[] picks = new int[wordCount];
+        int total = separator.length() * (wordCount - 1);
+        for (int i = 0; i < wordCount; i++) {
+            picks[i] = entropyPool.nextInt(words.size());
+            total += words.length(picks[i]);
+        }
+        int digitWord = -1;
+        char digit = 0;
+        if (injectDigit) {
+            digitWord = entropyPool.nextInt(wordCount);
+            digit = (char) ('0' + entropyPool.nextInt(10));
+            total++;
+        }
+
+        char[] buffer = new char[total];
+        try {
+            int position = 0;
+            for (int i = 0; i < wordCount; i++) {
+                if (i > 0) {
+                    separator.getChars(0, separator.length(), buffer, position);
+                    position += separator.length();
+                }
+                int start = position;
+                position = words.copyTo(picks[i], buffer, position);
+                if (capitalize) {
+                    buffer[start] = Character.toUpperCase(buffer[start]);
+                }
+                if (i == digitWord) {
+                    buffer[position++] = digit;
+                }
+            }
+            return new String(buffer);
+        } finally {
+            // 清除缓冲区和抽取结果中残留的口令信息
+            Arrays.fill(buffer, '\0');
+            Arrays.fill(picks, 0);
+        }
+    }
+
+    /**
+     * 口令短语的熵：每个词log2(词数)位，插入数字时再加上数字和位置的log2(10 × 词数)位
+     * 分隔符和大写是固定规则，不增加熵；分隔符为空时词的边界可能有歧义，结果为上界
+     */
+    public double entropyBits(int wordCount, boolean injectDigit) {
+        double bits = wordCount * words.bitsPerWord();
+        if (injectDigit) {
+            bits += Math.log(10.0 * wordCount) / LOG2;
+        }
+        return bits;
+    }
+
+    public int dictionarySize() {
+        return words.size();
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.service.EntropyPool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 表驱动的密码生成引擎
+ * 启动时预计算所有字符集组合，生成时按位从随机数中抽取下标并做无偏的拒绝采样，
+ * 结果写入可复用的字符缓冲区，每次调用只分配最终的String。
+ * 带约束的生成（{@link PasswordPolicy}）不做"生成后检查、不满足则重来"：
+ * 先按每类最少字符数排好类别布局并做无偏洗牌，再逐位从对应类别中抽取，
+ * 每个字符固定消耗一次抽取，约束再严格单次生成的开销也不变
+ */
+public final class PasswordGenerator {
+
+    static final String LOWER = "abcdefghijklmnopqrstuvwxyz";
+    static final String UPPER = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    static final String DIGITS = "0123456789";
+    static final String SPECIAL = "!@#$%^&*()_+-=[]{}|;:,.<>?";
+    static final String AMBIGUOUS = "0O1lI";
+
+    // 自定义字符集去重后的最大长度
+    static final int MAX_CUSTOM_ALPHABET = 256;
+
+    private static final int FLAG_UPPER = 1;
+    private static final int FLAG_DIGITS = 1 << 1;
+    private static final int FLAG_SPECIAL = 1 << 2;
+
+    // 下标为 useUpper/useDigits/useSpecial 的位组合，小写字母始终包含
+    private static final char[][] ALPHABETS = new char[8][];
+
+    // 带约束生成使用的分类字符集，第二维为是否排除易混淆字符
+    private static final CharClasses[][] CLASSES = new CharClasses[8][2];
+
+    private static final double LOG2 = Math.log(2);
+
+    // 缓冲区超过该长度时不再线程内缓存，避免超长请求长期占用内存
+    private static final int MAX_CACHED_BUFFER = 1024;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+
+    static {
+        for (int flags = 0; flags < ALPHABETS.length; flags++) {
+            StringBuilder chars = new StringBuilder(LOWER);
+            if ((flags & FLAG_UPPER) != 0) chars.append(UPPER);
+            if ((flags & FLAG_DIGITS) != 0) chars.append(DIGITS);
+            if ((flags & FLAG_SPECIAL) != 0) chars.append(SPECIAL);
+            ALPHABETS[flags] = chars.toString().toCharArray();
+
+            for (int ambiguous = 0; ambiguous < 2; ambiguous++) {
+                List<char[]> classes = new ArrayList<>(4);
+                classes.add(filter(LOWER, ambiguous == 1));
+                if ((flags & FLAG_UPPER) != 0) classes.add(filter(UPPER, ambiguous == 1));
+                if ((flags & FLAG_DIGITS) != 0) classes.add(filter(DIGITS, ambiguous == 1));
+                if ((flags & FLAG_SPECIAL) != 0) classes.add(filter(SPECIAL, ambiguous == 1));
+                CLASSES[flags][ambiguous] = new CharClasses(classes);
+            }
+        }
+    }
+
+    private final EntropyPool entropyPool;
+
+    public PasswordGenerator(EntropyPool entropyPool) {
+        this.entropyPool = entropyPool;
+    }
+
+    public String generate(int length, boolean useUpper, boolean useDigits, boolean useSpecial) {
+        if (length <= 0) {
+            return "";
+        }
+
+        char[] alphabet = ALPHABETS[flags(useUpper, useDigits, useSpecial)];
+        char[] buffer = acquireBuffer(length);
+        try {
+            fill(buffer, length, alphabet);
+            return new String(buffer, 0, length);
+        } finally {
+            // 清除缓冲区中残留的密码字符
+            Arrays.fill(buffer, 0, length, '\0');
+        }
+    }
+
+    /**
+     * 按约束生成密码，无约束时与{@link #generate(int, boolean, boolean, boolean)}相同
+     * 设置了自定义字符集时忽略useUpper/useDigits/useSpecial，按字符自身的类别划分
+     */
+    public String generate(int length, boolean useUpper, boolean useDigits, boolean useSpecial,
+                           PasswordPolicy policy) {
+        if (policy.isUnconstrained()) {
+            return generate(length, useUpper, useDigits, useSpecial);
+        }
+        CharClasses classes = classes(useUpper, useDigits, useSpecial, policy);
+        checkFeasible(length, classes, policy);
+        if (length <= 0) {
+            return "";
+        }
+
+        char[] buffer = acquireBuffer(length);
+        int[] layout = layout(length, classes.count(), policy.minPerClass());
+        try {
+            char previous = 0;
+            for (int i = 0; i < length; i++) {
+                char[] alphabet = layout[i] < 0 ? classes.all() : classes.get(layout[i]);
+                int index;
+                int skip = i > 0 && policy.noAdjacentRepeats() ? indexOf(alphabet, previous) : -1;
+                if (skip < 0) {
+                    index = entropyPool.nextInt(alphabet.length);
+                } else {
+                    // 从去掉前一个字符后的字符集中均匀抽取，而不是抽中重复字符后重抽
+                    index = entropyPool.nextInt(alphabet.length - 1);
+                    if (index >= skip) {
+                        index++;
+                    }
+                }
+                previous = alphabet[index];
+                buffer[i] = previous;
+            }
+            return new String(buffer, 0, length);
+        } finally {
+            Arrays.fill(buffer, 0, length, '\0');
+            Arrays.fill(layout, 0);
+        }
+    }
+
+    /**
+     * 类别布局：前minPerClass × 类别数个位置依次固定为各类别，其余位置（-1）从全部字符中抽取，
+     * 再用Fisher-Yates洗牌把固定类别的位置均匀打散
+     */
+    private int[] layout(int length, int classCount, int minPerClass) {
+        int[] layout = new int[length];
+        int required = classCount * minPerClass;
+        for (int i = 0; i < length; i++) {
+            layout[i] = i < required ? i / minPerClass : -1;
+        }
+        if (required > 0) {
+            for (int i = length - 1; i > 0; i--) {
+                int j = entropyPool.nextInt(i + 1);
+                int swap = layout[i];
+                layout[i] = layout[j];
+                layout[j] = swap;
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * 带约束时的熵下界：固定类别的位置只计该类别的大小，其余位置计全部字符；
+     * 相邻不重复时每位按少一个候选字符计算。布局洗牌带来的额外熵不计入
+     */
+    public static double entropyBits(int length, boolean useUpper, boolean useDigits, boolean useSpecial,
+                                     PasswordPolicy policy) {
+        if (policy.isUnconstrained()) {
+            return entropyBits(length, useUpper, useDigits, useSpecial);
+        }
+        CharClasses classes = classes(useUpper, useDigits, useSpecial, policy);
+        checkFeasible(length, classes, policy);
+        if (length <= 0) {
+            return 0;
+        }
+        int excluded = policy.noAdjacentRepeats() ? 1 : 0;
+        int minPerClass = Math.max(0, policy.minPerClass());
+        double bits = 0;
+        for (int c = 0; c < classes.count(); c++) {
+            bits += minPerClass * Math.log(classes.get(c).length - excluded) / LOG2;
+        }
+        bits += (length - classes.count() * minPerClass) * Math.log(classes.all().length - excluded) / LOG2;
+        return bits;
+    }
+
+    private static CharClasses classes(boolean useUpper, boolean useDigits, boolean useSpecial, PasswordPolicy policy) {
+        if (policy.hasCustomAlphabet()) {
+            return CharClasses.parse(policy.customAlphabet(), policy.excludeAmbiguous());
+        }
+        return CLASSES[flags(useUpper, useDigits, useSpecial)][policy.excludeAmbiguous() ? 1 : 0];
+    }
+
+    private static void checkFeasible(int length, CharClasses classes, PasswordPolicy policy) {
+        int minPerClass = policy.minPerClass();
+        if (minPerClass < 0) {
+            throw new IllegalArgumentException("每类最少字符数不能为负数");
+        }
+        if ((long) minPerClass * classes.count() > length) {
+            throw new IllegalArgumentException("密码长度" + length + "不足以容纳" + classes.count()
+                    + "类字符各" + minPerClass + "个");
+        }
+        // 用到的每个字符集至少2个字符时，去掉前一个字符后总还有候选，不重复约束一定可以满足
+        int smallest = minPerClass > 0 ? classes.minSize() : classes.all().length;
+        if (policy.noAdjacentRepeats() && smallest < 2) {
+            throw new IllegalArgumentException("相邻字符不重复要求每类字符至少有2个可选字符");
+        }
+    }
+
+    private static int indexOf(char[] alphabet, char c) {
+        for (int i = 0; i < alphabet.length; i++) {
+            if (alphabet[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static char[] filter(String chars, boolean excludeAmbiguous) {
+        StringBuilder kept = new StringBuilder(chars.length());
+        for (int i = 0; i < chars.length(); i++) {
+            char c = chars.charAt(i);
+            if (!excludeAmbiguous || AMBIGUOUS.indexOf(c) < 0) {
+                kept.append(c);
+            }
+        }
+        return kept.toString().toCharArray();
+    }
+
+    /**
+     * 随机字符密码的熵：每个字符log2(字符集大小)位
+     */
+    public static double entropyBits(int length, boolean useUpper, boolean useDigits, boolean useSpecial) {
+        if (length <= 0) {
+            return 0;
+        }
+        return length * Math.log(ALPHABETS[flags(useUpper, useDigits, useSpecial)].length) / Math.log(2);
+    }
+
+    private void fill(char[] buffer, int length, char[] alphabet) {
+        int bound = alphabet.length;
+        int bits = 32 - Integer.numberOfLeadingZeros(bound - 1);
+        int mask = (1 << bits) - 1;
+
+        long pool = 0;
+        int available = 0;
+        int i = 0;
+        while (i < length) {
+            if (available < bits) {
+                pool = entropyPool.nextLong();
+                available = 64;
+            }
+            int index = (int) pool & mask;
+            pool >>>= bits;
+            available -= bits;
+
+            // 拒绝采样：超出字符集范围的下标直接丢弃，保证每个字符等概率
+            if (index < bound) {
+                buffer[i++] = alphabet[index];
+            }
+        }
+    }
+
+    private static char[] acquireBuffer(int length) {
+        // 虚拟线程每个请求一个，线程内缓存不会被复用，直接分配
+        if (length > MAX_CACHED_BUFFER || Thread.currentThread().isVirtual()) {
+            return new char[length];
+        }
+        char[] buffer = BUFFER.get();
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, Math.min(buffer.length * 2, MAX_CACHED_BUFFER))];
+            BUFFER.set(buffer);
+        }
+        return buffer;
+    }
+
+    private static int flags(boolean useUpper, boolean useDigits, boolean useSpecial) {
+        return (useUpper ? FLAG_UPPER : 0) | (useDigits ? FLAG_DIGITS : 0) | (useSpecial ? FLAG_SPECIAL : 0);
+    }
+
+    /**
+     * 按类别划分的字符集，all为各类别的并集，类别之间没有重复字符
+     */
+    private record CharClasses(char[][] classes, char[] all) {
+
+        CharClasses(List<char[]> classes) {
+            this(classes.toArray(new char[0][]), concat(classes));
+        }
+
+        /**
+         * 自定义字符集按小写、大写、数字、其他划分类别，空类别不参与每类最少字符数的约束
+         */
+        static CharClasses parse(String alphabet, boolean excludeAmbiguous) {
+            StringBuilder[] buckets = new StringBuilder[4];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new StringBuilder();
+            }
+            BitSet seen = new BitSet(Character.MAX_VALUE + 1);
+            int distinct = 0;
+            for (int i = 0; i < alphabet.length(); i++) {
+                char c = alphabet.charAt(i);
+                if (Character.isSurrogate(c) || Character.isISOControl(c) || Character.isWhitespace(c)) {
+                    throw new IllegalArgumentException("自定义字符集不能包含空白、控制字符或补充平面字符");
+                }
+                if (seen.get(c) || (excludeAmbiguous && AMBIGUOUS.indexOf(c) >= 0)) {
+                    continue;
+                }
+                seen.set(c);
+                if (++distinct > MAX_CUSTOM_ALPHABET) {
+                    throw new IllegalArgumentException("自定义字符集不能超过" + MAX_CUSTOM_ALPHABET + "个不同字符");
+                }
+                int bucket = Character.isLowerCase(c) ? 0 : Character.isUpperCase(c) ? 1 : Character.isDigit(c) ? 2 : 3;
+                buckets[bucket].append(c);
+            }
+            if (distinct < 2) {
+                throw new IllegalArgumentException("自定义字符集至少需要2个不同字符");
+            }
+            List<char[]> classes = new ArrayList<>(4);
+            for (StringBuilder bucket : buckets) {
+                if (!bucket.isEmpty()) {
+                    classes.add(bucket.toString().toCharArray());
+                }
+            }
+            return new CharClasses(classes);
+        }
+
+        private static char[] concat(List<char[]> classes) {
+            StringBuilder all = new StringBuilder();
+            for (char[] chars : classes) {
+                all.append(chars);
+            }
+            return all.toString().toCharArray();
+        }
+
+        int count() {
+            return classes.length;
+        }
+
+        char[] get(int index) {
+            return classes[index];
+        }
+
+        int minSize() {
+            int min = all.length;
+            for (char[] chars : classes) {
+                min = Math.min(min, chars.length);
+            }
+            return min;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.repository.PasswordHistoryRetentionRepository.HistoryRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 被清理的密码历史记录的本地归档
+ * 按天追加写入 password-history-yyyy-MM-dd.jsonl.gz，每批记录为一个独立的gzip成员，
+ * 多个成员首尾相接仍是合法的gzip文件，可直接用zcat或GZIPInputStream读取；已写入的内容不会被改写。
+ */
+@Component
+public class PasswordHistoryArchive {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${password.history.retention.archive.dir:archive}")
+    private String archiveDir;
+
+    /**
+     * 追加一批记录并落盘，返回后才可以删除这些记录
+     * @param rows 待归档的记录
+     */
+    public void append(List<HistoryRow> rows) throws IOException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Path dir = Path.of(archiveDir);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("password-history-" + LocalDate.now() + ".jsonl.gz");
+
+        try (FileOutputStream fileOut = new FileOutputStream(file.toFile(), true)) {
+            GZIPOutputStream gzip = new GZIPOutputStream(fileOut);
+            OutputStream out = new BufferedOutputStream(gzip);
+            for (HistoryRow row : rows) {
+                out.write(objectMapper.writeValueAsBytes(row));
+                out.write('\n');
+            }
+            out.flush();
+            gzip.finish();
+            fileOut.getChannel().force(true);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.dto.HistoryCursor;
+import com.example.randompsd.repository.PasswordHistoryRepository;
+import com.example.randompsd.repository.PasswordHistoryRetentionRepository;
+import com.example.randompsd.repository.PasswordHistoryRetentionRepository.HistoryRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 密码历史记录的保留策略
+ * 定时按创建时间（max-age-days）和每个用户的记录数上限（max-rows-per-user）清理，
+ * 每次只删除一小块并在块之间暂停，避免长时间持有锁；开启归档时先写入归档文件再删除。
+ */
+@Component
+public class PasswordHistoryRetention {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHistoryRetention.class);
+
+    @Autowired
+    private PasswordHistoryRetentionRepository retentionRepository;
+
+    @Autowired
+    private PasswordHistoryRepository passwordHistoryRepository;
+
+    @Autowired
+    private PasswordHistoryArchive passwordHistoryArchive;
+
+    @Autowired
+    private RecentHistoryRing recentHistoryRing;
+
+    @Autowired
+    private HistoryVersionTracker historyVersionTracker;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${password.history.retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${password.history.retention.max-age-days:0}")
+    private int maxAgeDays;
+
+    @Value("${password.history.retention.max-rows-per-user:0}")
+    private int maxRowsPerUser;
+
+    @Value("${password.history.retention.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${password.history.retention.chunk-pause-ms:50}")
+    private long chunkPauseMs;
+
+    @Value("${password.history.retention.archive.enabled:false}")
+    private boolean archiveEnabled;
+
+    private Counter purgedByAge;
+    private Counter purgedByUserLimit;
+    private Counter archived;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        purgedByAge = Counter.builder("password.history.purged")
+                .description("保留策略删除的密码历史记录数")
+                .tag("reason", "age")
+                .register(meterRegistry);
+        purgedByUserLimit = Counter.builder("password.history.purged")
+                .description("保留策略删除的密码历史记录数")
+                .tag("reason", "user_limit")
+                .register(meterRegistry);
+        archived = Counter.builder("password.history.archived")
+                .description("删除前归档的密码历史记录数")
+                .register(meterRegistry);
+        Gauge.builder("password.history.retention.lag", lagSeconds, AtomicLong::get)
+                .description("最旧记录超出保留期限的时长")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${password.history.retention.cron:0 30 3 * * *}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        long deleted = 0;
+        try {
+            if (maxAgeDays > 0) {
+                deleted += purgeByAge(LocalDateTime.now().minusDays(maxAgeDays));
+            }
+            if (maxRowsPerUser > 0) {
+                deleted += purgeByUserLimit();
+            }
+            log.info("密码历史清理完成，删除{}条记录", deleted);
+        } catch (IOException e) {
+            log.error("密码历史归档失败，本次清理中止", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("密码历史清理被中断");
+        } finally {
+            // 中途失败时也可能已删除部分记录，总是与数据库同步
+            recentHistoryRing.resync(passwordHistoryRepository.findPage(Limit.of(recentHistoryRing.capacity())));
+            historyVersionTracker.invalidateAll();
+            updateLag();
+        }
+    }
+
+    private long purgeByAge(LocalDateTime cutoff) throws IOException, InterruptedException {
+        long total = 0;
+        List<HistoryRow> rows;
+        do {
+            rows = retentionRepository.findOlderThan(cutoff, chunkSize);
+            total += purge(rows, purgedByAge);
+        } while (rows.size() == chunkSize);
+        return total;
+    }
+
+    private long purgeByUserLimit() throws IOException, InterruptedException {
+        long total = 0;
+        for (Long userId : retentionRepository.findUsersExceeding(maxRowsPerUser)) {
+            Optional<HistoryCursor> boundary = retentionRepository.findUserBoundary(userId, maxRowsPerUser);
+            if (boundary.isEmpty()) {
+                continue;
+            }
+            List<HistoryRow> rows;
+            do {
+                rows = retentionRepository.findUserRowsUpTo(userId, boundary.get(), chunkSize);
+                total += purge(rows, purgedByUserLimit);
+            } while (rows.size() == chunkSize);
+        }
+        return total;
+    }
+
+    /**
+     * 归档并删除一块记录，块之间暂停以便其他事务获取锁
+     */
+    private int purge(List<HistoryRow> rows, Counter purged) throws IOException, InterruptedException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        if (archiveEnabled) {
+            passwordHistoryArchive.append(rows);
+            archived.increment(rows.size());
+        }
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (HistoryRow row : rows) {
+            ids.add(row.id());
+        }
+        int deleted = retentionRepository.deleteByIds(ids);
+        purged.increment(deleted);
+
+        if (chunkPauseMs > 0) {
+            Thread.sleep(chunkPauseMs);
+        }
+        return deleted;
+    }
+
+    /**
+     * 保留滞后：最旧一条记录超出保留期限的秒数，清理跟得上时为0
+     */
+    private void updateLag() {
+        if (maxAgeDays <= 0) {
+            lagSeconds.set(0);
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(maxAgeDays);
+        long lag = retentionRepository.findOldestCreatedAt()
+                .map(oldest -> Duration.between(oldest, cutoff).getSeconds())
+                .orElse(0L);
+        lagSeconds.set(Math.max(0, lag));
+    }
+}
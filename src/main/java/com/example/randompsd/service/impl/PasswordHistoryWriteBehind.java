@@ -0,0 +1,246 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.dto.PasswordHistoryView;
+import com.example.randompsd.model.PasswordHistory;
+import com.example.randompsd.repository.PasswordHistoryBatchRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 密码历史记录的异步批量写入（write-behind）
+ * 请求线程只把记录放入有界队列，后台线程在攒够一批或到达时间间隔时以JDBC批处理写入数据库。
+ * 队列已满时请求线程最多等待offer-timeout-ms，仍无空位则退回同步写入；关闭时写完队列中剩余的记录。
+ * 批量写入失败时按指数退避重试整批（整批在一个事务中，失败即回滚，重试不会重复插入），
+ * 仍失败则逐条写入，只有单独写入也失败的记录才被丢弃并计入password.history.persist.dropped。
+ */
+@Component
+public class PasswordHistoryWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHistoryWriteBehind.class);
+
+    @Autowired
+    private PasswordHistoryBatchRepository passwordHistoryBatchRepository;
+
+    @Autowired
+    private RecentHistoryRing recentHistoryRing;
+
+    @Autowired
+    private PasswordMetrics passwordMetrics;
+
+    @Autowired
+    private HistoryVersionTracker historyVersionTracker;
+
+    @Value("${password.history.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${password.history.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${password.history.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${password.history.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${password.history.write-behind.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${password.history.write-behind.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${password.history.write-behind.retry-backoff-ms:100}")
+    private long retryBackoffMs;
+
+    @Value("${password.history.write-behind.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private BlockingQueue<PasswordHistory> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        // 后台线程大部分时间阻塞在队列和JDBC写入上，虚拟线程模式下不占用平台线程
+        Thread.Builder builder = virtualThreads
+                ? Thread.ofVirtual()
+                : Thread.ofPlatform().daemon(true);
+        flusher = builder.name("password-history-flusher").start(this::runFlusher);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 将记录加入写入队列
+     * @param history 待保存的记录
+     */
+    public void enqueue(PasswordHistory history) {
+        if (running) {
+            try {
+                if (queue.offer(history, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // 队列已满或已停止：退回同步写入，不丢弃记录
+        passwordHistoryBatchRepository.insertAll(List.of(history));
+        publish(List.of(history));
+    }
+
+    private void runFlusher() {
+        List<PasswordHistory> batch = new ArrayList<>(batchSize);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PasswordHistory first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 攒批：达到批量大小或距第一条记录超过刷新间隔即写入
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (running && batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PasswordHistory next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+            } catch (InterruptedException e) {
+                running = false;
+            }
+
+            flush(batch);
+        }
+    }
+
+    private void drainRemaining() {
+        List<PasswordHistory> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<PasswordHistory> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            // 这些密码已经返回给客户端，写入失败时先整批重试，再逐条写入，尽量不丢记录
+            for (int attempt = 0; ; attempt++) {
+                long start = System.nanoTime();
+                try {
+                    passwordHistoryBatchRepository.insertAll(batch);
+                    passwordMetrics.persistFlush().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    publish(batch);
+                    return;
+                } catch (Exception e) {
+                    if (attempt >= maxRetries || !backoff(attempt)) {
+                        log.error("批量写入{}条密码历史记录失败，改为逐条写入", batch.size(), e);
+                        break;
+                    }
+                    log.warn("批量写入{}条密码历史记录失败，第{}次重试", batch.size(), attempt + 1, e);
+                }
+            }
+            insertEach(batch);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * 第attempt次失败后等待 retry-backoff-ms × 2^attempt
+     * @return 被中断（正在关闭）时返回false，不再重试
+     */
+    private boolean backoff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs << Math.min(attempt, 16));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 逐条写入，一条记录的问题（如数据超长）不会连累同批的其他记录
+     */
+    private void insertEach(List<PasswordHistory> batch) {
+        List<PasswordHistory> saved = new ArrayList<>(batch.size());
+        for (PasswordHistory history : batch) {
+            try {
+                passwordHistoryBatchRepository.insertAll(List.of(history));
+                saved.add(history);
+            } catch (Exception e) {
+                passwordMetrics.persistDropped().increment();
+                log.error("写入密码历史记录失败，丢弃1条记录", e);
+            }
+        }
+        if (!saved.isEmpty()) {
+            publish(saved);
+        }
+    }
+
+    /**
+     * 写入成功后发布到最近记录缓冲区，并更新历史版本
+     */
+    private void publish(List<PasswordHistory> histories) {
+        List<PasswordHistoryView> views = new ArrayList<>(histories.size());
+        Set<Long> userIds = new HashSet<>();
+        for (PasswordHistory history : histories) {
+            views.add(PasswordHistoryView.of(history));
+            if (history.getUser() != null) {
+                userIds.add(history.getUser().getId());
+            }
+        }
+        recentHistoryRing.publishAfterCommit(views);
+        historyVersionTracker.bumpAfterCommit(userIds);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.join(shutdownTimeoutMs);
+        if (flusher.isAlive()) {
+            log.warn("关闭时密码历史记录未能在{}ms内写完，剩余{}条", shutdownTimeoutMs, queue.size());
+            return;
+        }
+        // 写入停止标志前刚入队的记录
+        drainRemaining();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.dto.PasswordRequest;
+
+/**
+ * 随机字符密码的生成约束
+ * @param minPerClass 每个字符类别至少包含的字符数，0表示不限制
+ * @param excludeAmbiguous 排除易混淆的字符 0O1lI
+ * @param customAlphabet 自定义字符集，设置后取代大写、数字、特殊字符选项，按小写、大写、数字、其他划分类别
+ * @param noAdjacentRepeats 相邻字符不重复
+ */
+public record PasswordPolicy(int minPerClass, boolean excludeAmbiguous, String customAlphabet,
+                             boolean noAdjacentRepeats) {
+
+    public static final PasswordPolicy NONE = new PasswordPolicy(0, false, null, false);
+
+    public static PasswordPolicy of(PasswordRequest request) {
+        PasswordPolicy policy = new PasswordPolicy(request.getMinPerClass(), request.isExcludeAmbiguous(),
+                request.getCustomAlphabet(), request.isNoAdjacentRepeats());
+        return policy.isUnconstrained() ? NONE : policy;
+    }
+
+    public boolean isUnconstrained() {
+        return minPerClass <= 0 && !excludeAmbiguous && !hasCustomAlphabet() && !noAdjacentRepeats;
+    }
+
+    public boolean hasCustomAlphabet() {
+        return customAlphabet != null && !customAlphabet.isEmpty();
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.randompsd.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 常用请求形态（长度 + 字符类型）的预生成密码池
+ * 请求线程统计每种形态的请求次数，后台线程按衰减后的统计选出最热的几种形态，
+ * 为每种形态维护一个有界的无锁队列并在低于一半时补满；请求时从队列取出，池空则由调用方现场生成。
+ * 每个密码只会被poll取出一次，池中的密码只存在于内存，被取走后才由调用方保存历史记录。
+ * 只用于单次生成的无约束随机字符模式，批量生成、口令短语和带约束的请求不经过密码池。
+ */
+@Component
+public class PasswordPool {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordPool.class);
+
+    // 统计的衰减系数：每次重新排名时旧的计数减半，只反映最近的请求分布
+    private static final double DECAY = 0.5;
+
+    /**
+     * 按形态生成一个密码，由PasswordServiceImpl提供，与现场生成使用相同的引擎和泄露库校验
+     */
+    @FunctionalInterface
+    public interface Producer {
+        String generate(int length, boolean useUpper, boolean useDigits, boolean useSpecial);
+    }
+
+    /**
+     * 一种形态的密码队列；ConcurrentLinkedQueue.size()需要遍历，数量单独计数
+     */
+    private static final class Slot {
+        final ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${password.pool.enabled:false}")
+    private boolean enabled;
+
+    @Value("${password.pool.shapes:3}")
+    private int shapeCount;
+
+    @Value("${password.pool.capacity-per-shape:256}")
+    private int capacityPerShape;
+
+    @Value("${password.pool.max-length:64}")
+    private int maxLength;
+
+    @Value("${password.pool.refill-interval-ms:100}")
+    private long refillIntervalMs;
+
+    @Value("${password.pool.rank-interval-ms:10000}")
+    private long rankIntervalMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // 形态编码为 长度 << 3 | 字符类型位，长度不超过max-length，键的数量有上限
+    private final Map<Integer, LongAdder> requests = new ConcurrentHashMap<>();
+    private final Map<Integer, Double> scores = new HashMap<>();
+    private volatile Map<Integer, Slot> slots = Collections.emptyMap();
+
+    // 低水位：数量低于该值时补满，取出后低于该值时提前唤醒补充线程
+    private int refillThreshold;
+
+    private Producer producer;
+    private Thread refiller;
+    private volatile boolean running;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter refilled;
+
+    /**
+     * 启动后台补充线程，未启用时不做任何事
+     */
+    public void start(Producer producer) {
+        if (!enabled) {
+            return;
+        }
+        this.producer = producer;
+        refillThreshold = (capacityPerShape + 1) / 2;
+        hits = requestCounter("hit");
+        misses = requestCounter("miss");
+        refilled = Counter.builder("password.pool.refilled")
+                .description("后台预生成的密码数")
+                .register(meterRegistry);
+        Gauge.builder("password.pool.size", this, PasswordPool::size)
+                .description("池中可用的密码数")
+                .register(meterRegistry);
+        Gauge.builder("password.pool.shapes", this, pool -> pool.slots.size())
+                .description("当前预生成的请求形态数")
+                .register(meterRegistry);
+
+        running = true;
+        Thread.Builder builder = virtualThreads
+                ? Thread.ofVirtual()
+                : Thread.ofPlatform().daemon(true);
+        refiller = builder.name("password-pool-refiller").start(this::runRefiller);
+    }
+
+    private Counter requestCounter(String result) {
+        return Counter.builder("password.pool.requests")
+                .description("经过密码池的生成请求数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录一次请求并尝试从池中取出对应形态的密码
+     * @return 预生成的密码，池中没有时返回null，由调用方现场生成
+     */
+    public String take(int length, boolean useUpper, boolean useDigits, boolean useSpecial) {
+        if (!running || length <= 0 || length > maxLength) {
+            return null;
+        }
+        int shape = shape(length, useUpper, useDigits, useSpecial);
+        requests.computeIfAbsent(shape, key -> new LongAdder()).increment();
+
+        Slot slot = slots.get(shape);
+        String password = slot != null ? slot.queue.poll() : null;
+        if (password == null) {
+            misses.increment();
+            return null;
+        }
+        // 低于一半时提前唤醒补充线程，不等下一个补充周期
+        if (slot.size.decrementAndGet() < refillThreshold) {
+            LockSupport.unpark(refiller);
+        }
+        hits.increment();
+        return password;
+    }
+
+    private void runRefiller() {
+        long refillIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refillIntervalMs);
+        long rankIntervalNanos = TimeUnit.MILLISECONDS.toNanos(rankIntervalMs);
+        long nextRank = System.nanoTime();
+        while (running) {
+            try {
+                if (System.nanoTime() - nextRank >= 0) {
+                    rank();
+                    nextRank = System.nanoTime() + rankIntervalNanos;
+                }
+                for (Map.Entry<Integer, Slot> entry : slots.entrySet()) {
+                    refill(entry.getKey(), entry.getValue());
+                }
+            } catch (Exception e) {
+                log.warn("密码池补充失败", e);
+            }
+            LockSupport.parkNanos(this, refillIntervalNanos);
+        }
+    }
+
+    /**
+     * 按衰减后的请求次数重新选出最热的形态；保留仍然入选的队列，清空落选形态的队列
+     */
+    private void rank() {
+        for (Map.Entry<Integer, LongAdder> entry : requests.entrySet()) {
+            double score = scores.getOrDefault(entry.getKey(), 0.0) * DECAY + entry.getValue().sumThenReset();
+            scores.put(entry.getKey(), score);
+        }
+        scores.values().removeIf(score -> score < 1);
+
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Integer, Double>comparingByValue().reversed());
+
+        Map<Integer, Slot> previous = slots;
+        Map<Integer, Slot> next = new HashMap<>();
+        for (int i = 0; i < ranked.size() && i < shapeCount; i++) {
+            Integer shape = ranked.get(i).getKey();
+            next.put(shape, previous.getOrDefault(shape, new Slot()));
+        }
+        slots = Map.copyOf(next);
+        for (Map.Entry<Integer, Slot> entry : previous.entrySet()) {
+            if (!next.containsKey(entry.getKey())) {
+                discard(entry.getValue());
+            }
+        }
+    }
+
+    private void refill(int shape, Slot slot) {
+        int length = shape >>> 3;
+        boolean useUpper = (shape & 1) != 0;
+        boolean useDigits = (shape & 2) != 0;
+        boolean useSpecial = (shape & 4) != 0;
+        // 不低于一半时不补充，补充线程在低水位之上不与请求线程争用生成器
+        if (slot.size.get() >= refillThreshold) {
+            return;
+        }
+        while (running && slot.size.get() < capacityPerShape) {
+            String password;
+            try {
+                password = producer.generate(length, useUpper, useDigits, useSpecial);
+            } catch (IllegalArgumentException e) {
+                // 多次命中泄露库等无法生成的形态，留给请求线程现场生成并返回错误
+                return;
+            }
+            // 先计数再入队，take减去的数量总有对应的增加，计数不会为负
+            slot.size.incrementAndGet();
+            slot.queue.offer(password);
+            refilled.increment();
+        }
+    }
+
+    /**
+     * 丢弃队列中的密码，只减去实际取出的数量，与并发的take不会重复计数
+     */
+    private static void discard(Slot slot) {
+        while (slot.queue.poll() != null) {
+            slot.size.decrementAndGet();
+        }
+    }
+
+    private int size() {
+        int total = 0;
+        for (Slot slot : slots.values()) {
+            total += slot.size.get();
+        }
+        return total;
+    }
+
+    private static int shape(int length, boolean useUpper, boolean useDigits, boolean useSpecial) {
+        return length << 3 | (useUpper ? 1 : 0) | (useDigits ? 2 : 0) | (useSpecial ? 4 : 0);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (refiller == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(refiller);
+        refiller.join(TimeUnit.SECONDS.toMillis(5));
+        for (Slot slot : slots.values()) {
+            discard(slot);
+        }
+        slots = Collections.emptyMap();
+    }
+}
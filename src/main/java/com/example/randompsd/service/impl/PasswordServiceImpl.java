@@ -1,184 +1,434 @@
 package com.example.randompsd.service.impl;
 
+import com.example.randompsd.dto.HistoryCursor;
+import com.example.randompsd.dto.HistoryPage;
+import com.example.randompsd.dto.PasswordHistoryView;
 import com.example.randompsd.dto.PasswordRequest;
+import com.example.randompsd.dto.PasswordStrength;
+import com.example.randompsd.index.WordList;
 import com.example.randompsd.model.PasswordHistory;
 import com.example.randompsd.model.User;
+import com.example.randompsd.repository.PasswordHistoryBatchRepository;
 import com.example.randompsd.repository.PasswordHistoryRepository;
+import com.example.randompsd.service.BreachLookupService;
+import com.example.randompsd.service.EntropyPool;
 import com.example.randompsd.service.PasswordService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.security.SecureRandom;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class PasswordServiceImpl implements PasswordService {
 
+    // 开启泄露库校验时，重新生成的最大次数
+    private static final int MAX_BREACH_RETRIES = 16;
+
+    private static final int RECENT_LIMIT = RecentHistoryRing.MIN_CAPACITY;
+
+    private static final String MODE_RANDOM = "random";
+    private static final String MODE_PASSPHRASE = "passphrase";
+    private static final String DEFAULT_SEPARATOR = "-";
+    private static final int MAX_SEPARATOR_LENGTH = 8;
+
     @Autowired
     private PasswordHistoryRepository passwordHistoryRepository;
 
+    @Autowired
+    private PasswordHistoryBatchRepository passwordHistoryBatchRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PasswordHistoryWriteBehind passwordHistoryWriteBehind;
+
+    @Autowired
+    private EntropyPool entropyPool;
+
+    @Autowired
+    private PatternStrengthEstimator patternStrengthEstimator;
+
+    @Autowired
+    private BreachLookupService breachLookupService;
+
+    @Autowired
+    private RecentHistoryRing recentHistoryRing;
+
+    @Autowired
+    private PasswordMetrics passwordMetrics;
+
+    @Autowired
+    private HistoryVersionTracker historyVersionTracker;
+
+    @Autowired
+    private PasswordPool passwordPool;
+
+    @Value("${password.breach.guard-generate:false}")
+    private boolean breachGuardGenerate;
+
+    @Value("${password.passphrase.wordlist-path:}")
+    private String passphraseWordlistPath;
+
+    @Value("${password.passphrase.default-words:8}")
+    private int passphraseDefaultWords;
+
+    @Value("${password.passphrase.max-words:20}")
+    private int passphraseMaxWords;
+
+    private PasswordGenerator passwordGenerator;
+
+    private PassphraseGenerator passphraseGenerator;
+
+    @PostConstruct
+    public void init() throws IOException {
+        passwordGenerator = new PasswordGenerator(entropyPool);
+        passphraseGenerator = new PassphraseGenerator(entropyPool, loadPassphraseWords());
+        if (passphraseDefaultWords <= 0 || passphraseDefaultWords > passphraseMaxWords) {
+            throw new IllegalArgumentException("password.passphrase.default-words必须在1-" + passphraseMaxWords + "之间");
+        }
+        checkPassphraseLength(passphraseDefaultWords, DEFAULT_SEPARATOR, true);
+        passwordPool.start((length, useUpper, useDigits, useSpecial) ->
+                generateUnbreached(length, useUpper, useDigits, useSpecial, PasswordPolicy.NONE));
+        recentHistoryRing.warm(passwordHistoryRepository.findPage(Limit.of(recentHistoryRing.capacity())));
+    }
+
     @Override
     public String generatePassword(int length, boolean useUpper, boolean useDigits, boolean useSpecial) {
-        // 定义字符集
-        String lower = "abcdefghijklmnopqrstuvwxyz";
-        String upper = useUpper ? "ABCDEFGHIJKLMNOPQRSTUVWXYZ" : "";
-        String digits = useDigits ? "0123456789" : "";
-        String special = useSpecial ? "!@#$%^&*()_+-=[]{}|;:,.<>?" : "";
-        
-        String allChars = lower + upper + digits + special;
-        
-        if (allChars.isEmpty()) {
-            allChars = lower; // 至少使用小写字母
+        return generateRandom(length, useUpper, useDigits, useSpecial, PasswordPolicy.NONE, false);
+    }
+
+    /**
+     * @param usePool 是否允许从预生成的密码池中取，只有单次生成的请求为true；取池的耗时同样计入生成耗时
+     */
+    private String generateRandom(int length, boolean useUpper, boolean useDigits, boolean useSpecial,
+                                  PasswordPolicy policy, boolean usePool) {
+        checkLength(length);
+        long start = System.nanoTime();
+        try {
+            // 无约束的请求优先从预生成的密码池中取，池中没有时现场生成
+            if (usePool && policy.isUnconstrained() && passwordPool.isEnabled()) {
+                String pooled = passwordPool.take(length, useUpper, useDigits, useSpecial);
+                if (pooled != null) {
+                    return pooled;
+                }
+            }
+            return generateUnbreached(length, useUpper, useDigits, useSpecial, policy);
+        } finally {
+            passwordMetrics.generation(length, useUpper, useDigits, useSpecial)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private String generateUnbreached(int length, boolean useUpper, boolean useDigits, boolean useSpecial,
+                                      PasswordPolicy policy) {
+        String password = passwordGenerator.generate(length, useUpper, useDigits, useSpecial, policy);
+        if (!breachGuardGenerate || !breachLookupService.isEnabled()) {
+            return password;
+        }
+
+        // 随机密码命中泄露库只会发生在很短的长度上，重试有限次后仍命中则要求调整参数
+        for (int attempt = 0; breachLookupService.breachCount(password) > 0; attempt++) {
+            if (attempt == MAX_BREACH_RETRIES) {
+                throw new IllegalArgumentException("生成的密码多次出现在泄露库中，请增加长度或字符类型");
+            }
+            password = passwordGenerator.generate(length, useUpper, useDigits, useSpecial, policy);
+        }
+        return password;
+    }
+
+    /**
+     * 词表只在启动时读取一次；未配置路径时使用内置词表
+     */
+    private WordList loadPassphraseWords() throws IOException {
+        if (passphraseWordlistPath != null && !passphraseWordlistPath.isBlank()) {
+            try (InputStream in = Files.newInputStream(Path.of(passphraseWordlistPath))) {
+                return WordList.load(in);
+            }
+        }
+        try (InputStream in = new ClassPathResource("dictionary/passphrase-words.txt").getInputStream()) {
+            return WordList.load(in);
         }
-        
-        SecureRandom random = new SecureRandom();
-        final String chars = allChars; // 创建一个final变量供lambda表达式使用
-        
-        // 生成随机密码
-        return IntStream.range(0, length)
-                .map(i -> random.nextInt(chars.length()))
-                .mapToObj(i -> chars.charAt(i))
-                .collect(StringBuilder::new, StringBuilder::append, StringBuilder::append)
-                .toString();
     }
 
     @Override
     public String generatePassword(PasswordRequest request) {
-        return generatePassword(
+        return generatePassword(request, false);
+    }
+
+    @Override
+    public String generateSinglePassword(PasswordRequest request) {
+        return generatePassword(request, true);
+    }
+
+    private String generatePassword(PasswordRequest request, boolean usePool) {
+        if (isPassphrase(request)) {
+            return generatePassphrase(request);
+        }
+        return generateRandom(
                 request.getLength(),
                 request.isUseUpper(),
                 request.isUseDigits(),
-                request.isUseSpecial()
+                request.isUseSpecial(),
+                PasswordPolicy.of(request),
+                usePool
         );
     }
 
+    @Override
+    public void validate(PasswordRequest request) {
+        if (isPassphrase(request)) {
+            checkPassphraseLength(passphraseWordCount(request), passphraseSeparator(request), request.isInjectDigit());
+        } else {
+            checkLength(request.getLength());
+        }
+    }
+
+    private static void checkLength(int length) {
+        if (length > PasswordHistory.MAX_PASSWORD_LENGTH) {
+            throw new IllegalArgumentException("密码长度不能超过" + PasswordHistory.MAX_PASSWORD_LENGTH + "个字符");
+        }
+    }
+
+    /**
+     * 按最长的词计算口令短语可能达到的长度，超过历史记录的列长度时在生成前拒绝
+     */
+    private void checkPassphraseLength(int wordCount, String separator, boolean injectDigit) {
+        int maxLength = passphraseGenerator.maxLength(wordCount, separator.length(), injectDigit);
+        if (maxLength > PasswordHistory.MAX_PASSWORD_LENGTH) {
+            throw new IllegalArgumentException("口令短语最长可能达到" + maxLength + "个字符，超过"
+                    + PasswordHistory.MAX_PASSWORD_LENGTH + "个字符的上限，请减少词数或缩短分隔符");
+        }
+    }
+
+    private String generatePassphrase(PasswordRequest request) {
+        int wordCount = passphraseWordCount(request);
+        String separator = passphraseSeparator(request);
+        checkPassphraseLength(wordCount, separator, request.isInjectDigit());
+        long start = System.nanoTime();
+        try {
+            return passphraseGenerator.generate(wordCount, separator, request.isCapitalize(), request.isInjectDigit());
+        } finally {
+            passwordMetrics.passphraseGeneration().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public double entropyBits(PasswordRequest request) {
+        double bits;
+        if (isPassphrase(request)) {
+            bits = passphraseGenerator.entropyBits(passphraseWordCount(request), request.isInjectDigit());
+        } else {
+            bits = PasswordGenerator.entropyBits(request.getLength(),
+                    request.isUseUpper(), request.isUseDigits(), request.isUseSpecial(), PasswordPolicy.of(request));
+        }
+        return Math.round(bits * 10) / 10.0;
+    }
+
+    private static boolean isPassphrase(PasswordRequest request) {
+        String mode = request.getMode();
+        if (mode == null || mode.isEmpty() || MODE_RANDOM.equalsIgnoreCase(mode)) {
+            return false;
+        }
+        if (MODE_PASSPHRASE.equalsIgnoreCase(mode)) {
+            return true;
+        }
+        throw new IllegalArgumentException("不支持的生成模式: " + mode);
+    }
+
+    private int passphraseWordCount(PasswordRequest request) {
+        int wordCount = request.getWordCount() > 0 ? request.getWordCount() : passphraseDefaultWords;
+        if (wordCount > passphraseMaxWords) {
+            throw new IllegalArgumentException("口令短语词数必须在1-" + passphraseMaxWords + "之间");
+        }
+        return wordCount;
+    }
+
+    private static String passphraseSeparator(PasswordRequest request) {
+        String separator = request.getSeparator() != null ? request.getSeparator() : DEFAULT_SEPARATOR;
+        if (separator.length() > MAX_SEPARATOR_LENGTH) {
+            throw new IllegalArgumentException("分隔符长度不能超过" + MAX_SEPARATOR_LENGTH + "个字符");
+        }
+        return separator;
+    }
+
     @Override
     public PasswordHistory savePasswordHistory(String password, PasswordRequest request) {
-        PasswordHistory history = new PasswordHistory();
-        history.setPassword(password);
-        history.setLength(request.getLength());
-        history.setUseUpper(request.isUseUpper());
-        history.setUseDigits(request.isUseDigits());
-        history.setUseSpecial(request.isUseSpecial());
-        
-        return passwordHistoryRepository.save(history);
+        return persist(newHistory(password, request));
     }
     
     @Override
-    public PasswordHistory savePasswordHistory(String password, PasswordRequest request, User user) {
+    public PasswordHistory savePasswordHistory(String password, PasswordRequest request, Long userId) {
+        PasswordHistory history = newHistory(password, request);
+        history.setUser(userReference(userId));
+        
+        return persist(history);
+    }
+
+    /**
+     * 口令短语的历史记录以实际长度保存，大写和数字标记分别对应首字母大写和插入数字
+     */
+    private static PasswordHistory newHistory(String password, PasswordRequest request) {
         PasswordHistory history = new PasswordHistory();
         history.setPassword(password);
-        history.setLength(request.getLength());
-        history.setUseUpper(request.isUseUpper());
-        history.setUseDigits(request.isUseDigits());
-        history.setUseSpecial(request.isUseSpecial());
-        history.setUser(user);
-        
-        return passwordHistoryRepository.save(history);
+        history.setLength(password.length());
+        if (isPassphrase(request)) {
+            history.setUseUpper(request.isCapitalize());
+            history.setUseDigits(request.isInjectDigit());
+            history.setUseSpecial(false);
+        } else {
+            history.setUseUpper(request.isUseUpper());
+            history.setUseDigits(request.isUseDigits());
+            history.setUseSpecial(request.isUseSpecial());
+        }
+        return history;
+    }
+
+    /**
+     * 按ID获取用户引用，只用于写入外键，不查询用户实体
+     * 不经过仓库方法的只读事务，避免仅为取引用而占用数据库连接
+     */
+    private User userReference(Long userId) {
+        return entityManager.getReference(User.class, userId);
+    }
+
+    /**
+     * 开启write-behind时异步批量写入，返回的记录不含主键
+     */
+    private PasswordHistory persist(PasswordHistory history) {
+        long start = System.nanoTime();
+        if (passwordHistoryWriteBehind.isEnabled()) {
+            // 创建时间取生成时刻而非实际写入时刻
+            history.setCreatedAt(LocalDateTime.now());
+            passwordHistoryWriteBehind.enqueue(history);
+            passwordMetrics.persistEnqueue().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return history;
+        }
+        PasswordHistory saved = passwordHistoryRepository.save(history);
+        passwordMetrics.persistSync().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        recentHistoryRing.publishAfterCommit(List.of(PasswordHistoryView.of(saved)));
+        historyVersionTracker.bumpAfterCommit(Collections.singletonList(
+                saved.getUser() != null ? saved.getUser().getId() : null));
+        return saved;
     }
 
     @Override
-    public List<PasswordHistory> getRecentPasswords() {
-        return passwordHistoryRepository.findTop10ByOrderByCreatedAtDesc();
+    public int savePasswordHistoryBatch(List<String> passwords, PasswordRequest request, Long userId) {
+        User user = userId != null ? userReference(userId) : null;
+        List<PasswordHistory> histories = new ArrayList<>(passwords.size());
+        for (String password : passwords) {
+            PasswordHistory history = newHistory(password, request);
+            history.setUser(user);
+            histories.add(history);
+        }
+
+        long start = System.nanoTime();
+        int inserted = passwordHistoryBatchRepository.insertAll(histories);
+        passwordMetrics.persistBatch().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        List<PasswordHistoryView> views = new ArrayList<>(Math.min(histories.size(), recentHistoryRing.capacity()));
+        for (int i = Math.max(0, histories.size() - recentHistoryRing.capacity()); i < histories.size(); i++) {
+            views.add(PasswordHistoryView.of(histories.get(i)));
+        }
+        recentHistoryRing.publishAfterCommit(views);
+        historyVersionTracker.bumpAfterCommit(Collections.singletonList(userId));
+        return inserted;
+    }
+
+    /**
+     * 公共历史直接从内存中的环形缓冲区读取，不访问数据库
+     */
+    @Override
+    public List<PasswordHistoryView> getRecentPasswords() {
+        return recentHistoryRing.latest(RECENT_LIMIT);
     }
     
     @Override
-    public List<PasswordHistory> getPasswordHistoryByUser(User user) {
-        return passwordHistoryRepository.findTop10ByUserOrderByCreatedAtDesc(user);
+    @Transactional(readOnly = true)
+    public List<PasswordHistoryView> getPasswordHistoryByUser(Long userId) {
+        return passwordHistoryRepository.findPageByUserId(userId, Limit.of(RECENT_LIMIT));
+    }
+
+    @Override
+    public String getHistoryETag(Long userId) {
+        return userId != null ? historyVersionTracker.userETag(userId) : historyVersionTracker.globalETag();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public HistoryPage<PasswordHistoryView> getPasswordHistoryPage(Long userId, String cursor, int size) {
+        // 多取一条用于判断是否还有下一页
+        Limit limit = Limit.of(size + 1);
+        List<PasswordHistoryView> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = userId != null
+                    ? passwordHistoryRepository.findPageByUserId(userId, limit)
+                    : passwordHistoryRepository.findPage(limit);
+        } else {
+            HistoryCursor after = HistoryCursor.decode(cursor);
+            rows = userId != null
+                    ? passwordHistoryRepository.findPageByUserIdAfter(userId, after.createdAt(), after.id(), limit)
+                    : passwordHistoryRepository.findPageAfter(after.createdAt(), after.id(), limit);
+        }
+
+        if (rows.size() <= size) {
+            return new HistoryPage<>(rows, null);
+        }
+        List<PasswordHistoryView> items = rows.subList(0, size);
+        PasswordHistoryView last = items.get(size - 1);
+        return new HistoryPage<>(items, new HistoryCursor(last.createdAt(), last.id()).encode());
     }
     
     @Override
-    public Map<String, Object> evaluatePasswordStrength(String password) {
-        Map<String, Object> result = new HashMap<>();
-        int score = 0;
-        StringBuilder feedback = new StringBuilder();
-        
-        // 评估长度（满分40分）
-        int lengthScore = Math.min(password.length() * 4, 40);
-        score += lengthScore;
-        
-        // 检查字符类型
-        boolean hasLower = Pattern.compile("[a-z]").matcher(password).find();
-        boolean hasUpper = Pattern.compile("[A-Z]").matcher(password).find();
-        boolean hasDigit = Pattern.compile("\\d").matcher(password).find();
-        boolean hasSpecial = Pattern.compile("[^a-zA-Z0-9]").matcher(password).find();
-        
-        // 字符多样性评分（每种类型10分，满分40分）
-        int diversityScore = 0;
-        if (hasLower) diversityScore += 10;
-        if (hasUpper) diversityScore += 10;
-        if (hasDigit) diversityScore += 10;
-        if (hasSpecial) diversityScore += 10;
-        score += diversityScore;
-        
-        // 额外规则评分（满分20分）
-        int extraScore = 0;
-        
-        // 中间有数字或特殊字符（10分）
-        if (password.length() > 2 && (Pattern.compile("[^a-zA-Z].*[^a-zA-Z]").matcher(password.substring(1, password.length() - 1)).find())) {
-            extraScore += 10;
+    public PasswordStrength evaluatePasswordStrength(String password) {
+        return evaluatePasswordStrength(password, null);
+    }
+
+    @Override
+    public PasswordStrength evaluatePasswordStrength(String password, String mode) {
+        boolean entropy;
+        if (mode == null || mode.isEmpty() || "basic".equalsIgnoreCase(mode)) {
+            entropy = false;
+        } else if ("entropy".equalsIgnoreCase(mode)) {
+            entropy = true;
+        } else {
+            throw new IllegalArgumentException("不支持的评估模式: " + mode);
         }
-        
-        // 字符类型交替出现（10分）
-        int alterations = 0;
-        for (int i = 1; i < password.length(); i++) {
-            char prev = password.charAt(i-1);
-            char curr = password.charAt(i);
-            
-            boolean prevIsLetter = Character.isLetter(prev);
-            boolean currIsLetter = Character.isLetter(curr);
-            
-            if (prevIsLetter != currIsLetter) {
-                alterations++;
-            } else if (prevIsLetter && currIsLetter) {
-                boolean prevIsUpper = Character.isUpperCase(prev);
-                boolean currIsUpper = Character.isUpperCase(curr);
-                if (prevIsUpper != currIsUpper) {
-                    alterations++;
-                }
+
+        long start = System.nanoTime();
+        try {
+            PasswordStrength result = PasswordStrengthEvaluator.evaluate(password);
+            if (entropy) {
+                result = result.withEstimate(patternStrengthEstimator.estimate(password));
             }
+            return withBreachCount(result, password);
+        } finally {
+            passwordMetrics.evaluation(entropy).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
-        if (alterations >= password.length() / 3) {
-            extraScore += 10;
-        }
-        
-        score += extraScore;
-        
-        // 总分不超过100
-        score = Math.min(score, 100);
-        
-        // 强度级别
-        String strength;
-        if (score < 40) {
-            strength = "弱";
-            feedback.append("密码强度较弱，建议增加长度和复杂性。");
-        } else if (score < 70) {
-            strength = "中等";
-            feedback.append("密码强度中等，可以考虑增加特殊字符或大小写混合。");
-        } else if (score < 90) {
-            strength = "强";
-            feedback.append("密码强度良好。");
-        } else {
-            strength = "非常强";
-            feedback.append("密码强度极佳！");
+    }
+
+    /**
+     * 配置了泄露库索引时附带泄露次数，未配置时不返回该字段
+     */
+    private PasswordStrength withBreachCount(PasswordStrength result, String password) {
+        if (!breachLookupService.isEnabled()) {
+            return result;
         }
-        
-        // 具体建议
-        if (!hasUpper) feedback.append("\n添加大写字母可以提高密码强度。");
-        if (!hasLower) feedback.append("\n添加小写字母可以提高密码强度。");
-        if (!hasDigit) feedback.append("\n添加数字可以提高密码强度。");
-        if (!hasSpecial) feedback.append("\n添加特殊字符可以提高密码强度。");
-        if (password.length() < 12) feedback.append("\n建议密码长度至少为12位。");
-        
-        result.put("score", score);
-        result.put("strength", strength);
-        result.put("feedback", feedback.toString());
-        
-        return result;
+        return result.withBreachCount(breachLookupService.breachCount(password));
     }
 }
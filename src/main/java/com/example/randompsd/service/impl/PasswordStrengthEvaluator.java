@@ -0,0 +1,121 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.dto.PasswordStrength;
+
+/**
+ * 密码强度评估
+ * 一次遍历同时统计字符类型、中间位置的非字母字符和字符类型交替次数
+ */
+public final class PasswordStrengthEvaluator {
+
+    private PasswordStrengthEvaluator() {
+    }
+
+    public static PasswordStrength evaluate(String password) {
+        int length = password.length();
+
+        boolean hasLower = false;
+        boolean hasUpper = false;
+        boolean hasDigit = false;
+        boolean hasSpecial = false;
+
+        // 去掉首尾字符后非字母的码点数（代理对按一个码点计算）
+        int middleNonLetters = 0;
+        boolean skipMiddle = false;
+
+        int alterations = 0;
+        boolean prevIsLetter = false;
+        boolean prevIsUpper = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = password.charAt(i);
+
+            boolean asciiLetter;
+            if (c >= 'a' && c <= 'z') {
+                hasLower = true;
+                asciiLetter = true;
+            } else if (c >= 'A' && c <= 'Z') {
+                hasUpper = true;
+                asciiLetter = true;
+            } else {
+                if (c >= '0' && c <= '9') {
+                    hasDigit = true;
+                } else {
+                    hasSpecial = true;
+                }
+                asciiLetter = false;
+            }
+
+            if (i >= 1 && i <= length - 2) {
+                if (skipMiddle) {
+                    skipMiddle = false;
+                } else if (!asciiLetter) {
+                    middleNonLetters++;
+                    skipMiddle = Character.isHighSurrogate(c)
+                            && i + 1 <= length - 2
+                            && Character.isLowSurrogate(password.charAt(i + 1));
+                }
+            }
+
+            boolean isLetter = Character.isLetter(c);
+            boolean isUpper = isLetter && Character.isUpperCase(c);
+            if (i > 0) {
+                if (prevIsLetter != isLetter) {
+                    alterations++;
+                } else if (isLetter && prevIsUpper != isUpper) {
+                    alterations++;
+                }
+            }
+            prevIsLetter = isLetter;
+            prevIsUpper = isUpper;
+        }
+
+        // 评估长度（满分40分）
+        int score = Math.min(length * 4, 40);
+
+        // 字符多样性评分（每种类型10分，满分40分）
+        if (hasLower) score += 10;
+        if (hasUpper) score += 10;
+        if (hasDigit) score += 10;
+        if (hasSpecial) score += 10;
+
+        // 中间有数字或特殊字符（10分）
+        if (length > 2 && middleNonLetters >= 2) {
+            score += 10;
+        }
+
+        // 字符类型交替出现（10分）
+        if (alterations >= length / 3) {
+            score += 10;
+        }
+
+        // 总分不超过100
+        score = Math.min(score, 100);
+
+        // 强度级别
+        String strength;
+        StringBuilder feedback = new StringBuilder();
+        if (score < 40) {
+            strength = "弱";
+            feedback.append("密码强度较弱，建议增加长度和复杂性。");
+        } else if (score < 70) {
+            strength = "中等";
+            feedback.append("密码强度中等，可以考虑增加特殊字符或大小写混合。");
+        } else if (score < 90) {
+            strength = "强";
+            feedback.append("密码强度良好。");
+        } else {
+            strength = "非常强";
+            feedback.append("密码强度极佳！");
+        }
+
+        // 具体建议
+        if (!hasUpper) feedback.append("\n添加大写字母可以提高密码强度。");
+        if (!hasLower) feedback.append("\n添加小写字母可以提高密码强度。");
+        if (!hasDigit) feedback.append("\n添加数字可以提高密码强度。");
+        if (!hasSpecial) feedback.append("\n添加特殊字符可以提高密码强度。");
+        if (length < 12) feedback.append("\n建议密码长度至少为12位。");
+
+        return new PasswordStrength(score, strength, feedback.toString());
+    }
+}
@@ -0,0 +1,564 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.dto.EntropyEstimate;
+import com.example.randompsd.index.WordIndex;
+import com.example.randompsd.index.WordIndexCompiler;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于模式识别的密码强度估算
+ * 识别词典词（含大小写和l33t替换）、键盘连续按键、重复、字符序列和日期，
+ * 用动态规划求出猜测次数最少的分解方式，以此估算猜测次数和熵。
+ * 词典为内存映射的有序二进制索引，评估过程只分配与密码等长的几个数组。
+ */
+@Component
+public class PatternStrengthEstimator {
+
+    // 超出该长度的部分按暴力破解计算
+    static final int MAX_LENGTH = 128;
+
+    private static final int MIN_MATCH_LENGTH = 3;
+    private static final int MAX_REPEAT_BLOCK = 32;
+    private static final double MIN_MATCH_LOG10 = Math.log10(50);
+    private static final double LOG10_2 = Math.log10(2);
+    // 猜测次数的上限（10^300），超长输入按暴力破解累加后会超出double范围，真实量级由entropyBits表示
+    static final double MAX_LOG10_GUESSES = 300;
+
+    private static final byte BRUTEFORCE = 0;
+    private static final byte DICTIONARY = 1;
+    private static final byte SPATIAL = 2;
+    private static final byte REPEAT = 3;
+    private static final byte SEQUENCE = 4;
+    private static final byte DATE = 5;
+    private static final String[] PATTERN_NAMES = {"bruteforce", "dictionary", "spatial", "repeat", "sequence", "date"};
+
+    private static final int DATE_MIN_YEAR = 1000;
+    private static final int DATE_MAX_YEAR = 2050;
+    private static final int MIN_YEAR_SPACE = 20;
+
+    // 无分隔符日期的切分位置，与zxcvbn一致
+    private static final int[][][] DATE_SPLITS = {
+            {{1, 2}, {2, 3}},
+            {{1, 3}, {2, 3}},
+            {{1, 2}, {2, 4}, {4, 5}},
+            {{1, 3}, {2, 3}, {4, 5}, {4, 6}},
+            {{2, 4}, {4, 6}}
+    };
+
+    // l33t替换还原表
+    private static final char[] UNLEET = new char[128];
+
+    // QWERTY键盘的倾斜网格坐标，相邻按键方向依次为：左、左上、右上、右、右下、左下
+    private static final String[] KEYBOARD_ROWS = {
+            "`1234567890-=", "~!@#$%^&*()_+",
+            "qwertyuiop[]\\", "QWERTYUIOP{}|",
+            "asdfghjkl;'", "ASDFGHJKL:\"",
+            "zxcvbnm,./", "ZXCVBNM<>?"
+    };
+    private static final int[] ROW_OFFSETS = {0, 1, 1, 1};
+    private static final int[][] DIRECTIONS = {{-1, 0}, {0, -1}, {1, -1}, {1, 0}, {0, 1}, {-1, 1}};
+    private static final int[] KEY_X = new int[128];
+    private static final int[] KEY_Y = new int[128];
+    private static final boolean[] KEY_SHIFTED = new boolean[128];
+    private static final double KEYBOARD_STARTING_POSITIONS;
+    private static final double KEYBOARD_AVERAGE_DEGREE;
+
+    static {
+        String leet = "4a@a8b(c{c[c<c3e6g9g1i!i|i0o$s5s7t+t%x2z";
+        for (int i = 0; i < leet.length(); i += 2) {
+            UNLEET[leet.charAt(i)] = leet.charAt(i + 1);
+        }
+
+        Arrays.fill(KEY_X, -1);
+        int[][] grid = new int[4][16];
+        for (int row = 0; row < 4; row++) {
+            String plain = KEYBOARD_ROWS[row * 2];
+            String shifted = KEYBOARD_ROWS[row * 2 + 1];
+            for (int i = 0; i < plain.length(); i++) {
+                int x = i + ROW_OFFSETS[row];
+                KEY_X[plain.charAt(i)] = x;
+                KEY_Y[plain.charAt(i)] = row;
+                KEY_X[shifted.charAt(i)] = x;
+                KEY_Y[shifted.charAt(i)] = row;
+                KEY_SHIFTED[shifted.charAt(i)] = true;
+                grid[row][x] = 1;
+            }
+        }
+
+        int keys = 0;
+        int degrees = 0;
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 16; x++) {
+                if (grid[y][x] == 0) {
+                    continue;
+                }
+                keys++;
+                for (int[] direction : DIRECTIONS) {
+                    int nx = x + direction[0];
+                    int ny = y + direction[1];
+                    if (ny >= 0 && ny < 4 && nx >= 0 && nx < 16 && grid[ny][nx] != 0) {
+                        degrees++;
+                    }
+                }
+            }
+        }
+        KEYBOARD_STARTING_POSITIONS = keys * 2;
+        KEYBOARD_AVERAGE_DEGREE = (double) degrees / keys;
+    }
+
+    @Value("${password.estimator.dictionary-path:}")
+    private String dictionaryPath;
+
+    private final int referenceYear = LocalDate.now().getYear();
+
+    private WordIndex dictionary;
+
+    /**
+     * 映射词典索引文件；未配置时将内置词表编译到临时文件后映射
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        if (dictionaryPath != null && !dictionaryPath.isBlank()) {
+            dictionary = WordIndex.map(Path.of(dictionaryPath));
+            return;
+        }
+
+        WordIndexCompiler compiler = new WordIndexCompiler();
+        try (InputStream in = new ClassPathResource("dictionary/common-words.txt").getInputStream()) {
+            compiler.addList(in);
+        }
+        Path file = Files.createTempFile("random-psd-words", ".idx");
+        file.toFile().deleteOnExit();
+        compiler.writeTo(file);
+        dictionary = WordIndex.map(file);
+    }
+
+    public EntropyEstimate estimate(String password) {
+        int n = Math.min(password.length(), MAX_LENGTH);
+
+        char[] lower = new char[n];
+        char[] unleet = new char[n];
+        boolean hasLeet = false;
+        for (int i = 0; i < n; i++) {
+            char c = password.charAt(i);
+            char l = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+            char u = l < 128 && UNLEET[l] != 0 ? UNLEET[l] : l;
+            lower[i] = l;
+            unleet[i] = u;
+            hasLeet |= u != l;
+        }
+
+        Search search = new Search(n);
+        for (int i = 0; i < n; i++) {
+            search.relax(i, i + 1, Math.log10(cardinality(password.charAt(i))), BRUTEFORCE);
+            matchDictionary(search, password, lower, lower, i, n);
+            if (hasLeet) {
+                matchDictionary(search, password, lower, unleet, i, n);
+            }
+            matchSpatial(search, password, i, n);
+            matchRepeat(search, password, i, n);
+            matchSequence(search, password, i, n);
+            matchDate(search, password, i, n);
+        }
+
+        double log10Guesses = search.best[n];
+        for (int i = n; i < password.length(); i++) {
+            log10Guesses += Math.log10(cardinality(password.charAt(i)));
+        }
+
+        return new EntropyEstimate(
+                Math.pow(10, Math.min(log10Guesses, MAX_LOG10_GUESSES)),
+                Math.round(log10Guesses / LOG10_2 * 100) / 100.0,
+                score(log10Guesses),
+                search.patterns(password));
+    }
+
+    private void matchDictionary(Search search, String password, char[] lower, char[] chars, int start, int n) {
+        boolean leetPass = chars != lower;
+        int maxEnd = Math.min(n, start + dictionary.maxWordLength());
+        for (int end = start + MIN_MATCH_LENGTH; end <= maxEnd; end++) {
+            int rank = dictionary.find(chars, start, end);
+            if (rank == WordIndex.NO_PREFIX) {
+                break;
+            }
+            if (rank <= 0) {
+                continue;
+            }
+
+            int substitutions = 0;
+            for (int i = start; i < end; i++) {
+                if (chars[i] != lower[i]) {
+                    substitutions++;
+                }
+            }
+            // 未发生替换的词已在小写匹配中计算过
+            if (leetPass && substitutions == 0) {
+                continue;
+            }
+
+            double log10 = Math.log10(rank)
+                    + uppercaseVariations(password, start, end)
+                    + substitutions * LOG10_2;
+            search.relax(start, end, Math.max(log10, MIN_MATCH_LOG10), DICTIONARY);
+        }
+    }
+
+    private void matchSpatial(Search search, String password, int start, int n) {
+        int first = password.charAt(start);
+        if (first >= 128 || KEY_X[first] < 0) {
+            return;
+        }
+
+        int turns = 0;
+        int shifted = KEY_SHIFTED[first] ? 1 : 0;
+        int lastDirection = -1;
+        for (int end = start + 1; end < n; end++) {
+            int direction = direction(password.charAt(end - 1), password.charAt(end));
+            if (direction < 0) {
+                break;
+            }
+            if (direction != lastDirection) {
+                turns++;
+                lastDirection = direction;
+            }
+            if (KEY_SHIFTED[password.charAt(end)]) {
+                shifted++;
+            }
+
+            int length = end - start + 1;
+            if (length >= MIN_MATCH_LENGTH) {
+                search.relax(start, end + 1, Math.max(spatialLog10(length, turns, shifted), MIN_MATCH_LOG10), SPATIAL);
+            }
+        }
+    }
+
+    private void matchRepeat(Search search, String password, int start, int n) {
+        int maxBlock = Math.min(MAX_REPEAT_BLOCK, (n - start) / 2);
+        for (int block = 1; block <= maxBlock; block++) {
+            double blockLog10 = 0;
+            for (int i = start; i < start + block; i++) {
+                blockLog10 += Math.log10(cardinality(password.charAt(i)));
+            }
+
+            int repeats = 1;
+            while (start + (repeats + 1) * block <= n
+                    && password.regionMatches(start, password, start + repeats * block, block)) {
+                repeats++;
+                if (repeats * block >= MIN_MATCH_LENGTH) {
+                    search.relax(start, start + repeats * block,
+                            Math.max(blockLog10 + Math.log10(repeats), MIN_MATCH_LOG10), REPEAT);
+                }
+            }
+        }
+    }
+
+    private void matchSequence(Search search, String password, int start, int n) {
+        if (start + MIN_MATCH_LENGTH > n) {
+            return;
+        }
+        char first = password.charAt(start);
+        int charClass = sequenceClass(first);
+        int delta = password.charAt(start + 1) - first;
+        if (charClass == 0 || (delta != 1 && delta != -1) || sequenceClass(password.charAt(start + 1)) != charClass) {
+            return;
+        }
+
+        double base;
+        if ("aAzZ019".indexOf(first) >= 0) {
+            base = 4;
+        } else if (charClass == 1) {
+            base = 10;
+        } else {
+            base = 26;
+        }
+        if (delta < 0) {
+            base *= 2;
+        }
+
+        for (int end = start + 2; end < n; end++) {
+            char c = password.charAt(end);
+            if (c - password.charAt(end - 1) != delta || sequenceClass(c) != charClass) {
+                break;
+            }
+            int length = end - start + 1;
+            search.relax(start, end + 1, Math.max(Math.log10(base * length), MIN_MATCH_LOG10), SEQUENCE);
+        }
+    }
+
+    private void matchDate(Search search, String password, int start, int n) {
+        // 纯数字日期，如19900315、150390
+        int digits = 0;
+        while (start + digits < n && digits < 8 && isDigit(password.charAt(start + digits))) {
+            digits++;
+        }
+        for (int length = 4; length <= digits; length++) {
+            int end = start + length;
+            if (length == 4) {
+                int year = parseInt(password, start, end);
+                if (year >= 1900 && year <= DATE_MAX_YEAR) {
+                    search.relax(start, end, Math.max(Math.log10(yearSpace(year)), MIN_MATCH_LOG10), DATE);
+                }
+            }
+            for (int[] split : DATE_SPLITS[length - 4]) {
+                int year = dateYear(
+                        parseInt(password, start, start + split[0]),
+                        parseInt(password, start + split[0], start + split[1]),
+                        parseInt(password, start + split[1], end));
+                if (year > 0) {
+                    search.relax(start, end, Math.max(Math.log10(365.0 * yearSpace(year)), MIN_MATCH_LOG10), DATE);
+                }
+            }
+        }
+
+        // 带分隔符的日期，如1990-03-15、15/3/90
+        for (int firstLength = 1; firstLength <= 4 && firstLength <= digits; firstLength++) {
+            int sepIndex = start + firstLength;
+            if (sepIndex >= n || " /\\_.-".indexOf(password.charAt(sepIndex)) < 0) {
+                continue;
+            }
+            char separator = password.charAt(sepIndex);
+            for (int secondLength = 1; secondLength <= 2; secondLength++) {
+                int secondSep = sepIndex + 1 + secondLength;
+                if (secondSep >= n || password.charAt(secondSep) != separator
+                        || !allDigits(password, sepIndex + 1, secondSep)) {
+                    continue;
+                }
+                for (int thirdLength = 1; thirdLength <= 4; thirdLength++) {
+                    int end = secondSep + 1 + thirdLength;
+                    if (end > n || !allDigits(password, secondSep + 1, end)) {
+                        break;
+                    }
+                    int year = dateYear(
+                            parseInt(password, start, sepIndex),
+                            parseInt(password, sepIndex + 1, secondSep),
+                            parseInt(password, secondSep + 1, end));
+                    if (year > 0) {
+                        search.relax(start, end, Math.max(Math.log10(365.0 * yearSpace(year) * 4), MIN_MATCH_LOG10), DATE);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 判断三个整数能否组成日月年，返回年份，不能组成时返回-1
+     */
+    private static int dateYear(int a, int b, int c) {
+        if (b > 31 || b <= 0) {
+            return -1;
+        }
+        if (!isDatePart(a) || !isDatePart(b) || !isDatePart(c)) {
+            return -1;
+        }
+        int over31 = (a > 31 ? 1 : 0) + (b > 31 ? 1 : 0) + (c > 31 ? 1 : 0);
+        int over12 = (a > 12 ? 1 : 0) + (b > 12 ? 1 : 0) + (c > 12 ? 1 : 0);
+        int under1 = (a <= 0 ? 1 : 0) + (b <= 0 ? 1 : 0) + (c <= 0 ? 1 : 0);
+        if (over31 >= 2 || over12 == 3 || under1 >= 2) {
+            return -1;
+        }
+
+        // 四位年份在首或尾
+        if (c >= DATE_MIN_YEAR && isDayMonth(a, b)) return c;
+        if (a >= DATE_MIN_YEAR && isDayMonth(b, c)) return a;
+        // 两位年份在首或尾
+        if (c <= 99 && isDayMonth(a, b)) return twoDigitYear(c);
+        if (a <= 99 && isDayMonth(b, c)) return twoDigitYear(a);
+        return -1;
+    }
+
+    private static boolean isDatePart(int value) {
+        return value <= 99 || (value >= DATE_MIN_YEAR && value <= DATE_MAX_YEAR);
+    }
+
+    private static boolean isDayMonth(int x, int y) {
+        return (x >= 1 && x <= 31 && y >= 1 && y <= 12) || (y >= 1 && y <= 31 && x >= 1 && x <= 12);
+    }
+
+    private static int twoDigitYear(int year) {
+        return year > 50 ? 1900 + year : 2000 + year;
+    }
+
+    private double yearSpace(int year) {
+        return Math.max(Math.abs(year - referenceYear), MIN_YEAR_SPACE);
+    }
+
+    private static double uppercaseVariations(String password, int start, int end) {
+        int upper = 0;
+        int lower = 0;
+        for (int i = start; i < end; i++) {
+            char c = password.charAt(i);
+            if (c >= 'A' && c <= 'Z') upper++;
+            else if (c >= 'a' && c <= 'z') lower++;
+        }
+        if (upper == 0) {
+            return 0;
+        }
+        boolean firstUpper = Character.isUpperCase(password.charAt(start));
+        boolean lastUpper = Character.isUpperCase(password.charAt(end - 1));
+        if (lower == 0 || (upper == 1 && (firstUpper || lastUpper))) {
+            return LOG10_2;
+        }
+        double variations = 0;
+        for (int k = 1; k <= Math.min(upper, lower); k++) {
+            variations += binomial(upper + lower, k);
+        }
+        return Math.log10(variations);
+    }
+
+    private static double spatialLog10(int length, int turns, int shifted) {
+        double guesses = 0;
+        for (int i = 2; i <= length; i++) {
+            int possibleTurns = Math.min(turns, i - 1);
+            for (int j = 1; j <= possibleTurns; j++) {
+                guesses += binomial(i - 1, j - 1) * KEYBOARD_STARTING_POSITIONS * Math.pow(KEYBOARD_AVERAGE_DEGREE, j);
+            }
+        }
+        int unshifted = length - shifted;
+        if (shifted > 0) {
+            if (unshifted == 0) {
+                guesses *= 2;
+            } else {
+                double variations = 0;
+                for (int k = 1; k <= Math.min(shifted, unshifted); k++) {
+                    variations += binomial(length, k);
+                }
+                guesses *= variations;
+            }
+        }
+        return Math.log10(guesses);
+    }
+
+    private static int direction(char from, char to) {
+        if (from >= 128 || to >= 128 || KEY_X[from] < 0 || KEY_X[to] < 0) {
+            return -1;
+        }
+        int dx = KEY_X[to] - KEY_X[from];
+        int dy = KEY_Y[to] - KEY_Y[from];
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            if (DIRECTIONS[i][0] == dx && DIRECTIONS[i][1] == dy) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static double binomial(int n, int k) {
+        double result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    private static int cardinality(char c) {
+        if (c >= '0' && c <= '9') return 10;
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) return 26;
+        if (c > ' ' && c <= '~') return 33;
+        return 100;
+    }
+
+    private static int sequenceClass(char c) {
+        if (c >= '0' && c <= '9') return 1;
+        if (c >= 'a' && c <= 'z') return 2;
+        if (c >= 'A' && c <= 'Z') return 3;
+        return 0;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean allDigits(String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isDigit(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int parseInt(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static int score(double log10Guesses) {
+        if (log10Guesses < 3) return 0;
+        if (log10Guesses < 6) return 1;
+        if (log10Guesses < 8) return 2;
+        if (log10Guesses < 10) return 3;
+        return 4;
+    }
+
+    /**
+     * 动态规划状态：best[k]为前k个字符最少猜测次数的对数，from/kind记录最后一个片段
+     */
+    private static final class Search {
+        final double[] best;
+        final int[] from;
+        final byte[] kind;
+
+        Search(int n) {
+            best = new double[n + 1];
+            from = new int[n + 1];
+            kind = new byte[n + 1];
+            Arrays.fill(best, Double.POSITIVE_INFINITY);
+            best[0] = 0;
+        }
+
+        void relax(int start, int end, double log10, byte pattern) {
+            double candidate = best[start] + log10;
+            if (candidate < best[end]) {
+                best[end] = candidate;
+                from[end] = start;
+                kind[end] = pattern;
+            }
+        }
+
+        List<EntropyEstimate.Match> patterns(String password) {
+            List<EntropyEstimate.Match> matches = new ArrayList<>();
+            int end = best.length - 1;
+            while (end > 0) {
+                int start = from[end];
+                byte pattern = kind[end];
+                // 连续的暴力破解字符合并为一个片段
+                if (pattern == BRUTEFORCE) {
+                    while (start > 0 && kind[start] == BRUTEFORCE) {
+                        start = from[start];
+                    }
+                }
+                matches.add(new EntropyEstimate.Match(PATTERN_NAMES[pattern], password.substring(start, end)));
+                end = start;
+            }
+            Collections.reverse(matches);
+
+            // 超出评估长度的部分按暴力破解计入
+            int evaluated = best.length - 1;
+            if (password.length() > evaluated) {
+                int tailStart = evaluated;
+                if (evaluated > 0 && kind[evaluated] == BRUTEFORCE) {
+                    EntropyEstimate.Match last = matches.remove(matches.size() - 1);
+                    tailStart = evaluated - last.token().length();
+                }
+                matches.add(new EntropyEstimate.Match(PATTERN_NAMES[BRUTEFORCE], password.substring(tailStart)));
+            }
+            return matches;
+        }
+    }
+}
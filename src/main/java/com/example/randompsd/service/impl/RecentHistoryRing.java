@@ -0,0 +1,158 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.dto.PasswordHistoryView;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 最近生成的公共密码历史的无锁环形缓冲区
+ * 写入方用原子序号占位后以CAS写入槽位，较旧的写入不会覆盖绕回一圈后的较新写入；
+ * 读取方扫描全部槽位并按创建时间取最新的记录，不阻塞写入。
+ * 只记录本实例提交的写入，启动时从数据库预热。
+ */
+@Component
+public class RecentHistoryRing {
+
+    // 公共最近记录接口返回的条数，容量小于该值时接口无法返回完整的一页
+    static final int MIN_CAPACITY = 10;
+
+    private static final Comparator<PasswordHistoryView> NEWEST_FIRST =
+            Comparator.comparing(PasswordHistoryView::createdAt, Comparator.reverseOrder())
+                    .thenComparing(PasswordHistoryView::id, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    @Value("${password.history.recent.capacity:32}")
+    private int capacity;
+
+    private AtomicReferenceArray<Slot> slots;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private record Slot(long sequence, PasswordHistoryView view) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (capacity < MIN_CAPACITY) {
+            throw new IllegalArgumentException("password.history.recent.capacity must be at least " + MIN_CAPACITY);
+        }
+        slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 用数据库中的最新记录预热
+     * @param newestFirst 按创建时间倒序的记录
+     */
+    public void warm(List<PasswordHistoryView> newestFirst) {
+        for (int i = Math.min(newestFirst.size(), capacity) - 1; i >= 0; i--) {
+            publish(newestFirst.get(i));
+        }
+    }
+
+    /**
+     * 清理历史后与数据库同步：移除已被删除的记录，再用数据库中的最新记录填补空出的槽位
+     * 填补的记录序号最小，之后的任何发布都可以覆盖
+     * @param newestFirst 数据库中按创建时间倒序的最新记录
+     */
+    public void resync(List<PasswordHistoryView> newestFirst) {
+        Set<Long> ids = new HashSet<>();
+        for (PasswordHistoryView view : newestFirst) {
+            ids.add(view.id());
+        }
+        PasswordHistoryView newest = newestFirst.isEmpty() ? null : newestFirst.get(0);
+
+        Set<Long> present = new HashSet<>();
+        for (int i = 0; i < capacity; i++) {
+            Slot slot = slots.get(i);
+            if (slot == null) {
+                continue;
+            }
+            // 比快照更新的记录是快照之后提交的，保留
+            boolean committedAfter = newest != null && NEWEST_FIRST.compare(slot.view(), newest) < 0;
+            if (ids.contains(slot.view().id()) || committedAfter) {
+                present.add(slot.view().id());
+            } else {
+                slots.compareAndSet(i, slot, null);
+            }
+        }
+
+        int index = 0;
+        for (PasswordHistoryView view : newestFirst) {
+            if (present.contains(view.id())) {
+                continue;
+            }
+            while (index < capacity && !slots.compareAndSet(index, null, new Slot(-1, view))) {
+                index++;
+            }
+            if (index == capacity) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 在当前事务提交后发布记录；没有事务时立即发布
+     * @param views 已写入数据库的记录，按写入顺序排列
+     */
+    public void publishAfterCommit(List<PasswordHistoryView> views) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishAll(views);
+                }
+            });
+        } else {
+            publishAll(views);
+        }
+    }
+
+    private void publishAll(List<PasswordHistoryView> views) {
+        // 超出容量的部分会被立即覆盖，只发布最后capacity条
+        for (int i = Math.max(0, views.size() - capacity); i < views.size(); i++) {
+            publish(views.get(i));
+        }
+    }
+
+    private void publish(PasswordHistoryView view) {
+        long seq = sequence.getAndIncrement();
+        int index = (int) (seq % capacity);
+        Slot slot = new Slot(seq, view);
+        // 绕回一圈的较新写入可能先于本次写入完成，只在槽位中的记录更旧时覆盖
+        Slot current = slots.get(index);
+        while ((current == null || current.sequence() < seq) && !slots.compareAndSet(index, current, slot)) {
+            current = slots.get(index);
+        }
+    }
+
+    /**
+     * 获取最新的记录
+     * @param limit 最多返回的条数
+     * @return 按创建时间倒序排列的记录
+     */
+    public List<PasswordHistoryView> latest(int limit) {
+        List<PasswordHistoryView> result = new ArrayList<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            Slot slot = slots.get(i);
+            if (slot != null) {
+                result.add(slot.view());
+            }
+        }
+        // 槽位中总是已发布的记录，并发提交的发布顺序与创建时间不一定一致，按查询的排序规则取最新的
+        result.sort(NEWEST_FIRST);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.service.EntropyPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.SecureRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分段的安全随机数池
+ * 按线程散列到多个分段，每个分段持有独立的SecureRandom和随机字节缓冲区，
+ * 一次拉取整块字节后在本地消费，避免多核下争用同一个随机数提供者。
+ * 分段在消费的字节数或时间达到阈值后更换新的SecureRandom实例完成重新播种。
+ */
+@Service
+public class StripedEntropyPool implements EntropyPool {
+
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int blockSize;
+    private final long reseedBytes;
+    private final long reseedIntervalNanos;
+
+    public StripedEntropyPool(@Value("${entropy.pool.stripes:0}") int stripes,
+                              @Value("${entropy.pool.block-size:4096}") int blockSize,
+                              @Value("${entropy.pool.reseed-bytes:1048576}") long reseedBytes,
+                              @Value("${entropy.pool.reseed-interval-ms:600000}") long reseedIntervalMs) {
+        if (blockSize < Long.BYTES) {
+            throw new IllegalArgumentException("entropy.pool.block-size must be at least " + Long.BYTES);
+        }
+        int count = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors() * 2;
+        // 分段数取2的幂，便于用位运算选择分段
+        count = Integer.highestOneBit(count - 1) << 1;
+        if (count <= 0) {
+            count = 1;
+        }
+
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.stripeMask = count - 1;
+        // 块大小按long对齐，保证读取不会跨越块边界
+        this.blockSize = blockSize & ~(Long.BYTES - 1);
+        this.reseedBytes = reseedBytes;
+        this.reseedIntervalNanos = reseedIntervalMs * 1_000_000L;
+    }
+
+    @Override
+    public long nextLong() {
+        Stripe stripe = currentStripe();
+        stripe.lock.lock();
+        try {
+            if (stripe.position == stripe.block.length) {
+                refill(stripe);
+            }
+            long value = (long) LONG_VIEW.get(stripe.block, stripe.position);
+            stripe.position += Long.BYTES;
+            return value;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        // 与Random.nextInt(bound)相同的拒绝采样，保证结果无偏
+        int bits = (int) (nextLong() >>> 33);
+        int max = bound - 1;
+        int value = bits % bound;
+        while (bits - value + max < 0) {
+            bits = (int) (nextLong() >>> 33);
+            value = bits % bound;
+        }
+        return value;
+    }
+
+    private Stripe currentStripe() {
+        // 虚拟线程的ID按创建顺序递增，经散列后同样均匀分布到各分段
+        long id = Thread.currentThread().threadId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return stripes[(hash ^ (hash >>> 16)) & stripeMask];
+    }
+
+    private void refill(Stripe stripe) {
+        long now = System.nanoTime();
+        if (stripe.random == null
+                || stripe.bytesSinceReseed >= reseedBytes
+                || now - stripe.reseededAt >= reseedIntervalNanos) {
+            stripe.random = new SecureRandom();
+            stripe.bytesSinceReseed = 0;
+            stripe.reseededAt = now;
+        }
+        if (stripe.block.length != blockSize) {
+            stripe.block = new byte[blockSize];
+        }
+        stripe.random.nextBytes(stripe.block);
+        stripe.bytesSinceReseed += blockSize;
+        stripe.position = 0;
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        byte[] block = new byte[0];
+        int position;
+        SecureRandom random;
+        long bytesSinceReseed;
+        long reseededAt;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.dto.UserKeysView;
+import com.example.randompsd.index.BloomFilter;
+import com.example.randompsd.repository.UserRepository;
+import com.example.randompsd.security.AuthMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 用户名和邮箱可用性的内存索引，各用一个布隆过滤器保存规范化（去空白、转小写）后的值
+ * 过滤器判定不存在时直接返回可用，只有可能存在时才查询数据库，因此注册表单逐字输入的检查几乎不访问MySQL。
+ * 启动时按容量创建过滤器，后台线程按主键键集分页加载已有用户；加载完成前所有检查都查询数据库。
+ * 注册成功后立即加入过滤器，加载期间注册的用户同样会被记录。
+ * 只感知本实例的注册，其他实例注册的用户在可能误判为可用时由注册时的唯一约束兜底。
+ */
+@Component
+public class UserAvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UserAvailabilityIndex.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthMetrics authMetrics;
+
+    @Value("${security.availability.expected-users:100000}")
+    private long expectedUsers;
+
+    @Value("${security.availability.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${security.availability.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private BloomFilter usernames;
+    private BloomFilter emails;
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void init() {
+        // 预留一倍增长空间，超出后误判率升高但结果仍然正确
+        long capacity = Math.max(expectedUsers, userRepository.count() * 2);
+        usernames = BloomFilter.create(capacity, falsePositiveRate);
+        emails = BloomFilter.create(capacity, falsePositiveRate);
+        Thread.Builder builder = virtualThreads
+                ? Thread.ofVirtual()
+                : Thread.ofPlatform().daemon(true);
+        builder.name("user-availability-loader").start(this::load);
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        long loaded = 0;
+        try {
+            Long afterId = 0L;
+            List<UserKeysView> page;
+            do {
+                page = userRepository.findKeysAfter(afterId, Limit.of(batchSize));
+                for (UserKeysView keys : page) {
+                    add(keys.username(), keys.email());
+                    afterId = keys.id();
+                }
+                loaded += page.size();
+            } while (page.size() == batchSize);
+            ready = true;
+            log.info("用户可用性索引加载完成，共{}个用户，耗时{}ms", loaded,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.error("用户可用性索引加载失败，可用性检查将直接查询数据库", e);
+        }
+    }
+
+    /**
+     * 记录已注册的用户名和邮箱
+     */
+    public void add(String username, String email) {
+        if (username != null) {
+            usernames.put(normalize(username));
+        }
+        if (email != null) {
+            emails.put(normalize(email));
+        }
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        if (ready && !usernames.mightContain(normalize(username))) {
+            authMetrics.availabilityCheck(false);
+            return true;
+        }
+        authMetrics.availabilityCheck(true);
+        return !userRepository.existsByUsername(username.trim());
+    }
+
+    public boolean isEmailAvailable(String email) {
+        if (ready && !emails.mightContain(normalize(email))) {
+            authMetrics.availabilityCheck(false);
+            return true;
+        }
+        authMetrics.availabilityCheck(true);
+        return !userRepository.existsByEmail(email.trim());
+    }
+
+    /**
+     * 与数据库默认的大小写不敏感排序规则一致，大小写不同的值视为同一个
+     */
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
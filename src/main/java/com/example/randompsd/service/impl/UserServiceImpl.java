@@ -4,42 +4,111 @@ import com.example.randompsd.dto.UserLoginRequest;
 import com.example.randompsd.dto.UserRegistrationRequest;
 import com.example.randompsd.model.User;
 import com.example.randompsd.repository.UserRepository;
+import com.example.randompsd.security.PasswordHashingBusyException;
+import com.example.randompsd.security.PasswordHashingExecutor;
+import com.example.randompsd.security.UserDetailsCache;
 import com.example.randompsd.service.UserService;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
+
+    static final String USERNAME_TAKEN = "用户名已被使用";
+    static final String EMAIL_TAKEN = "电子邮箱已被使用";
+
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private UserAvailabilityIndex userAvailabilityIndex;
 
+    private volatile boolean legacyConstraintWarned;
+
+    /**
+     * 直接插入用户，由用户名和邮箱的唯一约束保证不重复，正常注册只有一条INSERT
+     * 违反唯一约束时按约束名转换为具体的错误信息
+     */
     @Override
     public User registerUser(UserRegistrationRequest request) {
-        // 检查用户名和邮箱是否已存在
-        if (isUsernameExists(request.getUsername())) {
-            throw new RuntimeException("用户名已存在");
-        }
-        
-        if (isEmailExists(request.getEmail())) {
-            throw new RuntimeException("电子邮箱已存在");
-        }
-        
         // 创建用户对象
         User user = new User();
         user.setUsername(request.getUsername());
-        // 加密密码
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        // 加密密码（在BCrypt线程池上执行，繁忙时抛出PasswordHashingBusyException）
+        user.setPassword(passwordHashingExecutor.encode(request.getPassword()));
         user.setEmail(request.getEmail());
         
         // 保存用户
-        return userRepository.save(user);
+        User saved;
+        try {
+            saved = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateUserError(e, request);
+        }
+        userDetailsCache.invalidate(saved.getUsername());
+        userAvailabilityIndex.add(saved.getUsername(), saved.getEmail());
+        return saved;
+    }
+
+    private RuntimeException duplicateUserError(DataIntegrityViolationException e, UserRegistrationRequest request) {
+        String message = duplicateMessage(constraintName(e));
+        if (message != null) {
+            return new IllegalArgumentException(message);
+        }
+        // 旧库中由Hibernate自动命名的约束无法按名称区分，只在出错时查询一次确定冲突字段
+        if (!legacyConstraintWarned) {
+            legacyConstraintWarned = true;
+            log.warn("用户表存在旧的自动命名唯一约束，请执行 db/drop-legacy-user-unique-keys.sql 清理", e);
+        }
+        if (isUsernameExists(request.getUsername())) {
+            return new IllegalArgumentException(USERNAME_TAKEN);
+        }
+        if (isEmailExists(request.getEmail())) {
+            return new IllegalArgumentException(EMAIL_TAKEN);
+        }
+        return e;
+    }
+
+    /**
+     * 按约束名确定冲突的字段，MySQL报告的约束名可能带表名前缀（如users.uk_users_email）
+     * @return 错误信息，不是已知约束时返回null
+     */
+    static String duplicateMessage(String constraintName) {
+        if (constraintName == null) {
+            return null;
+        }
+        String constraint = constraintName.toLowerCase(Locale.ROOT);
+        if (constraint.contains(User.UK_USERNAME)) {
+            return USERNAME_TAKEN;
+        }
+        if (constraint.contains(User.UK_EMAIL)) {
+            return EMAIL_TAKEN;
+        }
+        return null;
+    }
+
+    static String constraintName(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation.getConstraintName();
+            }
+        }
+        return null;
     }
 
     @Override
@@ -48,8 +117,9 @@ public class UserServiceImpl implements UserService {
         
         if (userOpt.isPresent()) {
             User user = userOpt.get();
-            // 验证密码
-            if (passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+            // 验证密码（在BCrypt线程池上执行，繁忙时抛出PasswordHashingBusyException）
+            if (passwordHashingExecutor.matches(request.getPassword(), user.getPassword())) {
+                upgradePasswordHash(user, request.getPassword());
                 return Optional.of(user);
             }
         }
@@ -57,6 +127,26 @@ public class UserServiceImpl implements UserService {
         return Optional.empty();
     }
 
+    /**
+     * 已保存的哈希强度低于当前配置时，用本次登录的明文重新加密
+     * 升级失败（线程池繁忙或密码已被并发修改）不影响登录，下次登录时再尝试
+     */
+    private void upgradePasswordHash(User user, String rawPassword) {
+        String oldHash = user.getPassword();
+        if (!passwordHashingExecutor.upgradeEncoding(oldHash)) {
+            return;
+        }
+        try {
+            String newHash = passwordHashingExecutor.encode(rawPassword);
+            if (userRepository.updatePasswordHash(user.getId(), oldHash, newHash) > 0) {
+                user.setPassword(newHash);
+                userDetailsCache.invalidate(user.getUsername());
+            }
+        } catch (PasswordHashingBusyException e) {
+            log.debug("BCrypt线程池繁忙，跳过用户{}的密码哈希升级", user.getUsername());
+        }
+    }
+
     @Override
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
@@ -71,4 +161,14 @@ public class UserServiceImpl implements UserService {
     public boolean isEmailExists(String email) {
         return userRepository.existsByEmail(email);
     }
+
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        return userAvailabilityIndex.isUsernameAvailable(username);
+    }
+
+    @Override
+    public boolean isEmailAvailable(String email) {
+        return userAvailabilityIndex.isEmailAvailable(email);
+    }
 }
@@ -0,0 +1,60 @@
+-- 用户表唯一约束迁移（MySQL 8）
+-- 旧版本的User实体在列上声明unique=true，Hibernate自动生成形如UK_xxxx/UKxxxx的约束名；
+-- 现在改为具名约束uk_users_username、uk_users_email，ddl-auto=update只会新增具名约束而不会删除旧约束，
+-- 两列上会各有两个重复的唯一索引，注册冲突时也无法按约束名区分用户名和邮箱。
+-- 本脚本先确保具名约束存在，再删除username、email上其余的单列唯一索引；可重复执行，
+-- 每次执行每列删除一个旧索引，输出的SQL为 "SELECT 1" 时表示已无需处理。
+-- 用法：mysql -u <用户> -p <数据库> < drop-legacy-user-unique-keys.sql
+
+-- 1. 创建具名约束（已存在时跳过）
+SET @sql = IF(
+    (SELECT COUNT(*) FROM information_schema.STATISTICS
+     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'users' AND INDEX_NAME = 'uk_users_username') = 0,
+    'ALTER TABLE users ADD CONSTRAINT uk_users_username UNIQUE (username)',
+    'SELECT 1');
+SELECT @sql;
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @sql = IF(
+    (SELECT COUNT(*) FROM information_schema.STATISTICS
+     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'users' AND INDEX_NAME = 'uk_users_email') = 0,
+    'ALTER TABLE users ADD CONSTRAINT uk_users_email UNIQUE (email)',
+    'SELECT 1');
+SELECT @sql;
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 2. 删除username上其余的单列唯一索引
+SET @legacy = (
+    SELECT s.INDEX_NAME FROM information_schema.STATISTICS s
+    WHERE s.TABLE_SCHEMA = DATABASE() AND s.TABLE_NAME = 'users'
+      AND s.NON_UNIQUE = 0 AND s.COLUMN_NAME = 'username'
+      AND s.INDEX_NAME NOT IN ('PRIMARY', 'uk_users_username')
+      AND (SELECT COUNT(*) FROM information_schema.STATISTICS c
+           WHERE c.TABLE_SCHEMA = s.TABLE_SCHEMA AND c.TABLE_NAME = s.TABLE_NAME
+             AND c.INDEX_NAME = s.INDEX_NAME) = 1
+    LIMIT 1);
+SET @sql = IF(@legacy IS NULL, 'SELECT 1', CONCAT('ALTER TABLE users DROP INDEX `', @legacy, '`'));
+SELECT @sql;
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 3. 删除email上其余的单列唯一索引
+SET @legacy = (
+    SELECT s.INDEX_NAME FROM information_schema.STATISTICS s
+    WHERE s.TABLE_SCHEMA = DATABASE() AND s.TABLE_NAME = 'users'
+      AND s.NON_UNIQUE = 0 AND s.COLUMN_NAME = 'email'
+      AND s.INDEX_NAME NOT IN ('PRIMARY', 'uk_users_email')
+      AND (SELECT COUNT(*) FROM information_schema.STATISTICS c
+           WHERE c.TABLE_SCHEMA = s.TABLE_SCHEMA AND c.TABLE_NAME = s.TABLE_NAME
+             AND c.INDEX_NAME = s.INDEX_NAME) = 1
+    LIMIT 1);
+SET @sql = IF(@legacy IS NULL, 'SELECT 1', CONCAT('ALTER TABLE users DROP INDEX `', @legacy, '`'));
+SELECT @sql;
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
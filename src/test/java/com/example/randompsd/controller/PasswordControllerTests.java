@@ -0,0 +1,134 @@
+package com.example.randompsd.controller;
+
+import com.example.randompsd.dto.PasswordHistoryView;
+import com.example.randompsd.security.AuthenticatedUser;
+import com.example.randompsd.service.PasswordService;
+import com.example.randompsd.service.impl.HistoryVersionTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 历史接口的条件请求：ETag匹配时返回304且不读取历史，有新的写入后必须返回200
+ */
+class PasswordControllerTests {
+
+    private static final List<PasswordHistoryView> HISTORY = List.of(
+            new PasswordHistoryView(1L, "Xy7!Xy7!Xy7!", 12, true, true, true, LocalDateTime.of(2024, 3, 1, 12, 30)));
+
+    private PasswordService passwordService;
+    private HistoryVersionTracker tracker;
+    private PasswordController controller;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new HistoryVersionTracker();
+        passwordService = mock(PasswordService.class);
+        when(passwordService.getHistoryETag(any())).thenAnswer(invocation -> {
+            Long userId = invocation.getArgument(0);
+            return userId != null ? tracker.userETag(userId) : tracker.globalETag();
+        });
+        when(passwordService.getRecentPasswords()).thenReturn(HISTORY);
+        when(passwordService.getPasswordHistoryByUser(any())).thenReturn(HISTORY);
+
+        controller = new PasswordController();
+        ReflectionTestUtils.setField(controller, "passwordService", passwordService);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void matchingETagReturns304WithoutReadingHistory() {
+        ResponseEntity<?> first = history(null);
+        assertEquals(200, first.getStatusCode().value());
+        String etag = first.getHeaders().getETag();
+
+        ResponseEntity<?> second = history(etag);
+        assertEquals(304, second.getStatusCode().value());
+        assertNull(second.getBody());
+        assertEquals(etag, second.getHeaders().getETag());
+        verify(passwordService, times(1)).getRecentPasswords();
+    }
+
+    @Test
+    void newWriteInvalidatesGlobalETag() {
+        String etag = history(null).getHeaders().getETag();
+
+        tracker.bumpAfterCommit(List.of(7L));
+
+        ResponseEntity<?> response = history(etag);
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(HISTORY, response.getBody());
+        assertNotEquals(etag, response.getHeaders().getETag());
+    }
+
+    @Test
+    void userETagChangesOnlyForThatUsersWrites() {
+        signIn(7L);
+        String etag = history(null).getHeaders().getETag();
+
+        // 其他用户的写入不影响本用户的历史
+        tracker.bumpAfterCommit(List.of(8L));
+        assertEquals(304, history(etag).getStatusCode().value());
+        verify(passwordService, times(1)).getPasswordHistoryByUser(7L);
+
+        tracker.bumpAfterCommit(List.of(7L));
+        assertEquals(200, history(etag).getStatusCode().value());
+        verify(passwordService, times(2)).getPasswordHistoryByUser(7L);
+        verify(passwordService, never()).getRecentPasswords();
+    }
+
+    @Test
+    void purgeInvalidatesETag() {
+        String etag = history(null).getHeaders().getETag();
+
+        tracker.invalidateAll();
+
+        assertEquals(200, history(etag).getStatusCode().value());
+    }
+
+    @Test
+    void responsesVaryByAuthorization() {
+        ResponseEntity<?> response = history(null);
+        assertEquals(List.of(HttpHeaders.AUTHORIZATION), response.getHeaders().getVary());
+        assertEquals("no-cache, private", response.getHeaders().getCacheControl());
+    }
+
+    private ResponseEntity<?> history(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/history");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return controller.getPasswordHistory(new ServletWebRequest(request, new MockHttpServletResponse()));
+    }
+
+    private static void signIn(Long userId) {
+        AuthenticatedUser user = new AuthenticatedUser(userId, "user" + userId, "", List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.randompsd.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 布隆过滤器不能漏报；在预期插入数量下，实测误判率应接近配置值
+ */
+class BloomFilterTests {
+
+    private static final int EXPECTED = 100_000;
+    private static final int PROBES = 200_000;
+
+    @Test
+    void noFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(EXPECTED, 0.01);
+        for (int i = 0; i < EXPECTED; i++) {
+            filter.put(username(i));
+        }
+        for (int i = 0; i < EXPECTED; i++) {
+            assertTrue(filter.mightContain(username(i)), username(i));
+        }
+    }
+
+    @Test
+    void falsePositiveRateIsNearConfigured() {
+        for (double configured : new double[]{0.01, 0.001}) {
+            BloomFilter filter = BloomFilter.create(EXPECTED, configured);
+            for (int i = 0; i < EXPECTED; i++) {
+                filter.put(username(i));
+            }
+            int falsePositives = 0;
+            for (int i = EXPECTED; i < EXPECTED + PROBES; i++) {
+                if (filter.mightContain(username(i))) {
+                    falsePositives++;
+                }
+            }
+            double measured = (double) falsePositives / PROBES;
+            assertTrue(measured < configured * 1.5 && measured > configured * 0.5,
+                    String.format(Locale.ROOT, "configured %.4f, measured %.5f", configured, measured));
+        }
+    }
+
+    @Test
+    void similarEmailsAreDistinguished() {
+        // 只差一个字符、大小写或域名的值不能互相命中（低误判率下逐个检查）
+        BloomFilter filter = BloomFilter.create(1_000, 0.0001);
+        filter.put("alice@example.com");
+        assertTrue(filter.mightContain("alice@example.com"));
+        for (String other : List.of("alice@example.co", "alice@example.org", "Alice@example.com",
+                "alicf@example.com", "bob@example.com", "")) {
+            assertTrue(!filter.mightContain(other), other);
+        }
+    }
+
+    @Test
+    void concurrentPutsLoseNoBits() throws InterruptedException {
+        BloomFilter filter = BloomFilter.create(EXPECTED, 0.01);
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = offset; i < EXPECTED; i += threads) {
+                    filter.put(username(i));
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        for (int i = 0; i < EXPECTED; i++) {
+            assertTrue(filter.mightContain(username(i)), username(i));
+        }
+    }
+
+    @Test
+    void sizingFollowsStandardFormula() {
+        BloomFilter filter = BloomFilter.create(EXPECTED, 0.01);
+        // m = -n·ln(p)/ln²2 ≈ 9.59n，k = m/n·ln2 ≈ 7
+        assertEquals(958_506, filter.bitCount());
+        assertEquals(7, filter.hashCount());
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(EXPECTED, 0));
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(EXPECTED, 1));
+    }
+
+    private static String username(int i) {
+        return "user" + i + "@example.com";
+    }
+}
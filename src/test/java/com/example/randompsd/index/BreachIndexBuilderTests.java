@@ -0,0 +1,156 @@
+package com.example.randompsd.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 构建索引后映射读取：块大小设得很小，使输入被拆成多个临时有序段，验证排序、多路归并和跨段的重复合并
+ */
+class BreachIndexBuilderTests {
+
+    private static final BreachHashIndex.Algorithm SHA1 = BreachHashIndex.Algorithm.SHA1;
+
+    // 每段4条记录，200行输入至少产生50个有序段
+    private static final int CHUNK_RECORDS = 4;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void unsortedInputRoundTripsThroughSpilledRuns() throws IOException {
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            String password = "password" + i;
+            int count = i % 3 == 0 ? 1 : i;
+            expected.put(password, count);
+            // 次数为1时省略次数，大小写混用十六进制
+            String hex = hex(password);
+            lines.add(count == 1 ? hex : (i % 2 == 0 ? hex.toUpperCase(Locale.ROOT) : hex) + ":" + count);
+        }
+        // 重复的哈希分散在不同的段中，归并时次数相加
+        for (int i = 1; i < 150; i += 7) {
+            String password = "password" + i;
+            lines.add(hex(password) + ":5");
+            expected.merge(password, 5, Integer::sum);
+        }
+        Collections.shuffle(lines, new Random(20240610L));
+
+        List<String> malformed = List.of(
+                hex("short").substring(2),
+                hex("toolong") + "00",
+                "zz" + hex("nonhex").substring(2),
+                hex("badcount") + ":12a",
+                hex("negative") + ":-3",
+                ":" + hex("prefix"));
+        List<String> input = new ArrayList<>(lines);
+        input.addAll(17, malformed);
+        input.add(40, "");
+        input.add(41, "# comment");
+
+        BreachIndexBuilder builder = new BreachIndexBuilder(SHA1, CHUNK_RECORDS, tempDir);
+        builder.addList(stream(input));
+        Path output = tempDir.resolve("breach.idx");
+        long written = builder.writeTo(output);
+
+        assertEquals(lines.size(), builder.accepted());
+        assertEquals(malformed.size(), builder.rejected());
+        assertEquals(expected.size(), written);
+
+        BreachHashIndex index = BreachHashIndex.map(output);
+        assertEquals(SHA1, index.algorithm());
+        assertEquals(expected.size(), index.size());
+        for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), index.occurrences(entry.getKey()), entry.getKey());
+        }
+        for (String absent : List.of("password150", "short", "toolong", "nonhex", "badcount", "negative", "")) {
+            assertEquals(0, index.occurrences(absent), absent);
+        }
+        assertNoRunsLeft();
+    }
+
+    @Test
+    void sortedInputAcrossSeveralListsMergesDuplicates() throws IOException {
+        List<String> hashes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            hashes.add(hex("sorted" + i));
+        }
+        Collections.sort(hashes);
+
+        // 两个列表都已排序（跳过块内排序），第二个列表与第一个完全重复
+        BreachIndexBuilder builder = new BreachIndexBuilder(SHA1, CHUNK_RECORDS, tempDir);
+        builder.addList(stream(hashes.stream().map(hash -> hash + ":2").toList()));
+        builder.addList(stream(hashes.stream().map(hash -> hash + ":" + Integer.MAX_VALUE).toList()));
+        Path output = tempDir.resolve("sorted.idx");
+
+        assertEquals(hashes.size(), builder.writeTo(output));
+        BreachHashIndex index = BreachHashIndex.map(output);
+        for (int i = 0; i < 40; i++) {
+            // 次数相加时封顶为Integer.MAX_VALUE
+            assertEquals(Integer.MAX_VALUE, index.occurrences("sorted" + i));
+        }
+        assertNoRunsLeft();
+    }
+
+    @Test
+    void ntlmIndexLooksUpByPassword() throws IOException {
+        BreachHashIndex.Algorithm ntlm = BreachHashIndex.Algorithm.NTLM;
+        BreachIndexBuilder builder = new BreachIndexBuilder(ntlm, CHUNK_RECORDS, tempDir);
+        builder.addList(stream(List.of(
+                "8846F7EAEE8FB117AD06BDD830B7586C:9545824",
+                "32ED87BDB5FDC5E9CBA88547376818D4:37359195",
+                hex("password"))));
+        Path output = tempDir.resolve("ntlm.idx");
+
+        assertEquals(2, builder.writeTo(output));
+        assertEquals(1, builder.rejected());
+        BreachHashIndex index = BreachHashIndex.map(output);
+        assertEquals(ntlm, index.algorithm());
+        assertEquals(9545824, index.occurrences("password"));
+        assertEquals(37359195, index.occurrences("123456"));
+        assertEquals(0, index.occurrences("Passw0rd!"));
+    }
+
+    @Test
+    void emptyInputWritesEmptyIndex() throws IOException {
+        BreachIndexBuilder builder = new BreachIndexBuilder(SHA1, CHUNK_RECORDS, tempDir);
+        builder.addList(stream(List.of("# nothing here", "")));
+        Path output = tempDir.resolve("empty.idx");
+
+        assertEquals(0, builder.writeTo(output));
+        BreachHashIndex index = BreachHashIndex.map(output);
+        assertEquals(0, index.size());
+        assertEquals(0, index.occurrences("password"));
+    }
+
+    private void assertNoRunsLeft() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.filter(file -> file.getFileName().toString().startsWith("breach-run")).count());
+        }
+    }
+
+    private static String hex(String password) {
+        return HexFormat.of().formatHex(SHA1.digest(password));
+    }
+
+    private static ByteArrayInputStream stream(List<String> lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.randompsd.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * RFC 1320 附录A.5的测试向量，以及NTLM（UTF-16LE编码后取MD4）的已知哈希
+ */
+class Md4Tests {
+
+    @Test
+    void rfc1320TestSuite() {
+        assertMd4("31d6cfe0d16ae931b73c59d7e0c089c0", "");
+        assertMd4("bde52cb31de33e46245e05fbdbd6fb24", "a");
+        assertMd4("a448017aaf21d8525fc10ae87aa6729d", "abc");
+        assertMd4("d9130a8164549fe818874806e1c7014b", "message digest");
+        assertMd4("d79e1c308aa5bbcdeea8ed63df412da9", "abcdefghijklmnopqrstuvwxyz");
+        assertMd4("043f8582f241db351ce627e153e7f0e4",
+                "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789");
+        assertMd4("e33b4ddc9c38f2199c3e7b164fcc0536",
+                "12345678901234567890123456789012345678901234567890123456789012345678901234567890");
+    }
+
+    @Test
+    void ntlmHashes() {
+        assertNtlm("31d6cfe0d16ae931b73c59d7e0c089c0", "");
+        assertNtlm("8846f7eaee8fb117ad06bdd830b7586c", "password");
+        assertNtlm("32ed87bdb5fdc5e9cba88547376818d4", "123456");
+        assertNtlm("fc525c9683e8fe067095ba2ddc971889", "Passw0rd!");
+        // 非ASCII字符按UTF-16LE编码
+        assertNtlm("f900556f89880c4084e3c644c6c20b9c", "密码");
+        // 200字节输入，跨越多个64字节块
+        assertNtlm("c16e1f599bba2bab447a15fa2ca8aabb", "x".repeat(100));
+    }
+
+    private static void assertMd4(String expected, String input) {
+        assertEquals(expected, HexFormat.of().formatHex(Md4.digest(input.getBytes(StandardCharsets.US_ASCII))),
+                () -> "MD4(\"" + input + "\")");
+    }
+
+    private static void assertNtlm(String expected, String password) {
+        assertEquals(expected, HexFormat.of().formatHex(BreachHashIndex.Algorithm.NTLM.digest(password)),
+                () -> "NTLM(\"" + password + "\")");
+    }
+}
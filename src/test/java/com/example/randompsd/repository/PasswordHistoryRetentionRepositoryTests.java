@@ -0,0 +1,63 @@
+package com.example.randompsd.repository;
+
+import com.example.randompsd.repository.PasswordHistoryRetentionRepository.HistoryRow;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 归档行的映射：匿名记录的user_id必须保持为null，不能变成0
+ */
+class PasswordHistoryRetentionRepositoryTests {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 3, 1, 12, 30);
+
+    @Test
+    void anonymousRowKeepsNullUserId() throws SQLException {
+        ResultSet rs = row(null);
+
+        HistoryRow row = PasswordHistoryRetentionRepository.ROW_MAPPER.mapRow(rs, 0);
+
+        assertNull(row.userId());
+        assertEquals(CREATED_AT, row.createdAt());
+    }
+
+    @Test
+    void userRowKeepsUserId() throws SQLException {
+        ResultSet rs = row(42L);
+
+        HistoryRow row = PasswordHistoryRetentionRepository.ROW_MAPPER.mapRow(rs, 0);
+
+        assertEquals(42L, row.userId());
+        assertEquals(7L, row.id());
+        assertEquals("Xy7!Xy7!Xy7!", row.password());
+        assertEquals(12, row.length());
+        assertEquals(CREATED_AT, row.createdAt());
+    }
+
+    /**
+     * getLong对NULL返回0且之后的wasNull只反映最后读取的列，与JDBC驱动的行为一致
+     */
+    private static ResultSet row(Long userId) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(7L);
+        when(rs.getString("password")).thenReturn("Xy7!Xy7!Xy7!");
+        when(rs.getInt("length")).thenReturn(12);
+        when(rs.getBoolean("use_upper")).thenReturn(true);
+        when(rs.getBoolean("use_digits")).thenReturn(true);
+        when(rs.getBoolean("use_special")).thenReturn(true);
+        when(rs.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(CREATED_AT));
+        when(rs.getLong("user_id")).thenReturn(userId == null ? 0L : userId);
+        when(rs.getObject("user_id", Long.class)).thenReturn(userId);
+        when(rs.wasNull()).thenReturn(false);
+        return rs;
+    }
+}
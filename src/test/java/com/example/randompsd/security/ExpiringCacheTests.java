@@ -0,0 +1,73 @@
+package com.example.randompsd.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 过期条目不会被读到；容量达到上限时先清理过期条目，大小始终不超过上限
+ */
+class ExpiringCacheTests {
+
+    @Test
+    void expiredEntryIsNotServed() throws InterruptedException {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+        long now = System.currentTimeMillis();
+        cache.put("past", "v", now - 1);
+        cache.put("soon", "v", now + 50);
+        cache.put("later", "v", now + 60_000);
+
+        assertNull(cache.get("past"));
+        assertEquals("v", cache.get("soon"));
+        Thread.sleep(60);
+        assertNull(cache.get("soon"));
+        assertEquals("v", cache.get("later"));
+
+        // 读取时清除过期条目
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.stats().hits());
+        assertEquals(2, cache.stats().evictions());
+    }
+
+    @Test
+    void sizeStaysBoundedAtMaxSize() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(100);
+        long later = System.currentTimeMillis() + 60_000;
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i, later);
+            assertTrue(cache.size() <= 100, "size " + cache.size());
+        }
+        // 最新写入的条目总能读到
+        assertEquals(9_999, cache.get(9_999));
+        assertTrue(cache.stats().evictions() >= 9_900);
+    }
+
+    @Test
+    void expiredEntriesAreEvictedBeforeLiveOnes() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(10);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            cache.put(i, i, now + 60_000);
+        }
+        for (int i = 5; i < 10; i++) {
+            cache.put(i, i, now - 1);
+        }
+
+        cache.put(10, 10, now + 60_000);
+
+        // 5个过期条目被清理后已有空间，未过期的条目全部保留
+        assertEquals(6, cache.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, cache.get(i));
+        }
+        assertEquals(10, cache.get(10));
+    }
+
+    @Test
+    void rejectsNonPositiveMaxSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringCache<>(0));
+    }
+}
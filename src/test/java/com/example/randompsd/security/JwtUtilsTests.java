@@ -0,0 +1,171 @@
+package com.example.randompsd.security;
+
+import com.example.randompsd.model.User;
+import com.example.randompsd.security.AuthMetrics.JwtOutcome;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 已验证令牌缓存：过期后不再命中，签名错误的令牌不进入缓存；每种校验失败记为对应的结果
+ */
+class JwtUtilsTests {
+
+    private static final String SECRET = "testSecretKeyThatIsAtLeast32BytesLongForHS256";
+
+    private SimpleMeterRegistry registry;
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        jwtUtils = jwtUtils(86_400_000);
+    }
+
+    @Test
+    void verifiedTokenIsServedFromCache() {
+        String token = jwtUtils.generateJwtToken(user());
+
+        Optional<Claims> first = jwtUtils.verifyAndParse(token);
+        Optional<Claims> second = jwtUtils.verifyAndParse(token);
+
+        assertEquals("alice", first.orElseThrow().getSubject());
+        assertEquals(first, second);
+        assertEquals(1, outcomes(JwtOutcome.VERIFIED));
+        assertEquals(1, outcomes(JwtOutcome.CACHED));
+        assertEquals(1, cache().size());
+    }
+
+    @Test
+    void cachedTokenIsNotServedAfterExpiration() throws InterruptedException {
+        jwtUtils = jwtUtils(1_000);
+        String token = jwtUtils.generateJwtToken(user());
+        Claims claims = jwtUtils.verifyAndParse(token).orElseThrow();
+        assertEquals(1, cache().size());
+
+        // exp精确到秒，等到exp之后再校验
+        long wait = claims.getExpiration().getTime() - System.currentTimeMillis() + 20;
+        Thread.sleep(Math.max(0, wait));
+
+        assertTrue(jwtUtils.verifyAndParse(token).isEmpty());
+        assertEquals(0, outcomes(JwtOutcome.CACHED));
+        assertEquals(1, outcomes(JwtOutcome.EXPIRED));
+    }
+
+    @Test
+    void badSignatureNeverEntersCache() {
+        String forged = Jwts.builder()
+                .setSubject("alice")
+                .claim(JwtUtils.CLAIM_USER_ID, 1L)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("anotherSecretKeyThatIsAtLeast32BytesLong!!".getBytes(StandardCharsets.UTF_8)),
+                        SignatureAlgorithm.HS256)
+                .compact();
+
+        assertTrue(jwtUtils.verifyAndParse(forged).isEmpty());
+        assertTrue(jwtUtils.verifyAndParse(forged).isEmpty());
+
+        assertEquals(2, outcomes(JwtOutcome.INVALID));
+        assertEquals(0, outcomes(JwtOutcome.CACHED));
+        assertEquals(0, cache().size());
+
+        // 篡改载荷后原签名不再匹配
+        String token = jwtUtils.generateJwtToken(user());
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + parts[1].substring(0, parts[1].length() - 2) + "AA." + parts[2];
+        assertTrue(jwtUtils.verifyAndParse(tampered).isEmpty());
+        assertEquals(0, cache().size());
+    }
+
+    @Test
+    void missingToken() {
+        assertTrue(jwtUtils.verifyAndParse(null).isEmpty());
+        assertTrue(jwtUtils.verifyAndParse("").isEmpty());
+        assertEquals(2, outcomes(JwtOutcome.MISSING));
+    }
+
+    @Test
+    void malformedToken() {
+        assertTrue(jwtUtils.verifyAndParse("not-a-jwt").isEmpty());
+        assertEquals(1, outcomes(JwtOutcome.MALFORMED));
+    }
+
+    @Test
+    void expiredToken() {
+        String expired = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+        assertTrue(jwtUtils.verifyAndParse(expired).isEmpty());
+        assertEquals(1, outcomes(JwtOutcome.EXPIRED));
+        assertEquals(0, cache().size());
+    }
+
+    @Test
+    void unsignedTokenIsUnsupported() {
+        String unsigned = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .compact();
+        assertTrue(jwtUtils.verifyAndParse(unsigned).isEmpty());
+        assertEquals(1, outcomes(JwtOutcome.UNSUPPORTED));
+        assertEquals(0, cache().size());
+    }
+
+    @Test
+    void blankTokenHasEmptyClaims() {
+        assertTrue(jwtUtils.verifyAndParse("   ").isEmpty());
+        assertEquals(1, outcomes(JwtOutcome.EMPTY_CLAIMS));
+    }
+
+    @Test
+    void digestDistinguishesNonAsciiInput() {
+        // 按US-ASCII编码时两者都会变成"token?"
+        assertNotEquals(JwtUtils.TokenDigest.of("token€"), JwtUtils.TokenDigest.of("token£"));
+        assertNotEquals(JwtUtils.TokenDigest.of("token€"), JwtUtils.TokenDigest.of("token?"));
+        assertEquals(JwtUtils.TokenDigest.of("token€"), JwtUtils.TokenDigest.of("token€"));
+    }
+
+    private JwtUtils jwtUtils(int expirationMs) {
+        JwtUtils utils = new JwtUtils();
+        ReflectionTestUtils.setField(utils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(utils, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(utils, "verifiedTokenCacheSize", 100);
+        ReflectionTestUtils.setField(utils, "authMetrics", new AuthMetrics(registry));
+        utils.init();
+        return utils;
+    }
+
+    private ExpiringCache<?, ?> cache() {
+        return (ExpiringCache<?, ?>) ReflectionTestUtils.getField(jwtUtils, "verifiedTokens");
+    }
+
+    private double outcomes(JwtOutcome outcome) {
+        return registry.get("auth.jwt.verifications")
+                .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                .counter()
+                .count();
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("alice");
+        return user;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.randompsd.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 已登录的请求同时受IP桶和用户桶限制
+ */
+class RateLimitFilterTests {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "generateCapacity", 3);
+        ReflectionTestUtils.setField(filter, "generatePermitsPerSecond", 0.001);
+        ReflectionTestUtils.setField(filter, "batchCapacity", 1);
+        ReflectionTestUtils.setField(filter, "batchPermitsPerSecond", 0.001);
+        ReflectionTestUtils.setField(filter, "authCapacity", 1);
+        ReflectionTestUtils.setField(filter, "authPermitsPerSecond", 0.001);
+        ReflectionTestUtils.setField(filter, "evaluateCapacity", 1);
+        ReflectionTestUtils.setField(filter, "evaluatePermitsPerSecond", 0.001);
+        ReflectionTestUtils.setField(filter, "availabilityCapacity", 1);
+        ReflectionTestUtils.setField(filter, "availabilityPermitsPerSecond", 0.001);
+        filter.init();
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void userCannotEscapeLimitByChangingIp() throws Exception {
+        signIn(1L);
+        assertEquals(200, generate("10.0.0.1").getStatus());
+        assertEquals(200, generate("10.0.0.2").getStatus());
+        assertEquals(200, generate("10.0.0.3").getStatus());
+
+        MockHttpServletResponse response = generate("10.0.0.4");
+        assertEquals(429, response.getStatus());
+        assertEquals("0", response.getHeader("X-RateLimit-Remaining"));
+    }
+
+    @Test
+    void ipCannotEscapeLimitByChangingUser() throws Exception {
+        signIn(1L);
+        assertEquals("2", generate("10.0.0.1").getHeader("X-RateLimit-Remaining"));
+        signIn(2L);
+        assertEquals("1", generate("10.0.0.1").getHeader("X-RateLimit-Remaining"));
+        signIn(3L);
+        assertEquals("0", generate("10.0.0.1").getHeader("X-RateLimit-Remaining"));
+        signIn(4L);
+        assertEquals(429, generate("10.0.0.1").getStatus());
+
+        // 匿名请求同样计入该IP
+        SecurityContextHolder.clearContext();
+        assertEquals(429, generate("10.0.0.1").getStatus());
+    }
+
+    @Test
+    void remainingIsTheSmallerOfBothBuckets() throws Exception {
+        SecurityContextHolder.clearContext();
+        generate("10.0.0.1");
+        generate("10.0.0.1");
+
+        signIn(1L);
+        // IP桶剩1，用户桶剩2
+        assertEquals("0", generate("10.0.0.1").getHeader("X-RateLimit-Remaining"));
+        // 用户换IP后取用户桶的剩余
+        assertEquals("1", generate("10.0.0.2").getHeader("X-RateLimit-Remaining"));
+    }
+
+    @Test
+    void rejectedResponseCarriesRetryAfter() throws Exception {
+        MockHttpServletResponse response = request("GET", "/api/auth/availability", "10.0.0.1");
+        assertEquals(200, response.getStatus());
+
+        response = request("GET", "/api/auth/availability", "10.0.0.1");
+        assertEquals(429, response.getStatus());
+        assertEquals("1000", response.getHeader("Retry-After"));
+    }
+
+    @Test
+    void encodedPathCannotBypassLimit() throws Exception {
+        assertEquals(200, request("POST", "/api/auth/login", "10.0.0.1").getStatus());
+        // 百分号编码（%6C为l）、分号参数和重复斜杠都按路由后的路径计入同一规则
+        assertEquals(429, request("POST", "/api/auth/%6Cogin", "10.0.0.1").getStatus());
+        assertEquals(429, request("POST", "/api/auth/login;jsessionid=1", "10.0.0.1").getStatus());
+        assertEquals(429, request("POST", "/api//auth/login", "10.0.0.1").getStatus());
+
+        assertEquals(200, request("POST", "/api/%67enerate", "10.0.0.2").getStatus());
+        assertEquals("1", request("POST", "/api/generate", "10.0.0.2").getHeader("X-RateLimit-Remaining"));
+    }
+
+    @Test
+    void batchHasItsOwnRule() throws Exception {
+        assertEquals(200, request("POST", "/api/generate/batch", "10.0.0.1").getStatus());
+        assertEquals(429, request("POST", "/api/generate/batch", "10.0.0.1").getStatus());
+        // 单次生成不受批量规则影响，批量也不消耗单次生成的令牌
+        assertEquals("2", generate("10.0.0.1").getHeader("X-RateLimit-Remaining"));
+    }
+
+    @Test
+    void contextPathIsStripped() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/app/api/auth/%6Cogin");
+        request.setContextPath("/app");
+        request.setRemoteAddr("10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        assertEquals("0", response.getHeader("X-RateLimit-Remaining"));
+    }
+
+    private static void signIn(Long userId) {
+        AuthenticatedUser user = new AuthenticatedUser(userId, "user" + userId, "", List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private MockHttpServletResponse generate(String remoteAddr) throws Exception {
+        return request("POST", "/api/generate", remoteAddr);
+    }
+
+    private MockHttpServletResponse request(String method, String uri, String remoteAddr) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
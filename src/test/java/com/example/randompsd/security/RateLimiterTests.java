@@ -0,0 +1,99 @@
+package com.example.randompsd.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 令牌桶的剩余令牌数、拒绝时的等待时间和空闲键清理，时间由调用方传入
+ */
+class RateLimiterTests {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final long T0 = 123_456_789L;
+
+    @Test
+    void burstCountsDownThenRejects() {
+        RateLimiter limiter = new RateLimiter("test", 5, 2);
+
+        for (long expected = 4; expected >= 0; expected--) {
+            assertEquals(expected, limiter.tryAcquire("10.0.0.1", T0));
+        }
+        // 每秒2个令牌，下一个令牌0.5秒后补充
+        assertEquals(-SECOND / 2, limiter.tryAcquire("10.0.0.1", T0));
+        assertEquals(-SECOND / 2, limiter.tryAcquire("10.0.0.1", T0));
+        assertEquals(-SECOND / 4, limiter.tryAcquire("10.0.0.1", T0 + SECOND / 4));
+    }
+
+    @Test
+    void tokensRefillOverTime() {
+        RateLimiter limiter = new RateLimiter("test", 5, 2);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("10.0.0.1", T0);
+        }
+
+        assertEquals(0, limiter.tryAcquire("10.0.0.1", T0 + SECOND / 2));
+        assertTrue(limiter.tryAcquire("10.0.0.1", T0 + SECOND / 2) < 0);
+        // 1.5秒后又补充3个令牌，取走1个剩2个
+        assertEquals(2, limiter.tryAcquire("10.0.0.1", T0 + 2 * SECOND));
+        // 空闲再久也不会超过容量
+        assertEquals(4, limiter.tryAcquire("10.0.0.1", T0 + 3600 * SECOND));
+    }
+
+    @Test
+    void keysAreIndependent() {
+        RateLimiter limiter = new RateLimiter("test", 2, 1);
+        limiter.tryAcquire("10.0.0.1", T0);
+        limiter.tryAcquire("10.0.0.1", T0);
+        assertTrue(limiter.tryAcquire("10.0.0.1", T0) < 0);
+
+        assertEquals(1, limiter.tryAcquire("10.0.0.2", T0));
+        // 用户ID与IP字符串类型不同，不会共用同一个桶
+        assertEquals(1, limiter.tryAcquire(1L, T0));
+        assertEquals(1, limiter.tryAcquire("1", T0));
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        assertEquals(1, RateLimiter.retryAfterSeconds(1));
+        assertEquals(1, RateLimiter.retryAfterSeconds(SECOND / 2));
+        assertEquals(1, RateLimiter.retryAfterSeconds(SECOND));
+        assertEquals(2, RateLimiter.retryAfterSeconds(SECOND + 1));
+        assertEquals(2, RateLimiter.retryAfterSeconds(2 * SECOND));
+
+        // auth规则每2秒一个令牌，桶空后Retry-After为2秒
+        RateLimiter limiter = new RateLimiter("auth", 1, 0.5);
+        limiter.tryAcquire("10.0.0.1", T0);
+        assertEquals(2, RateLimiter.retryAfterSeconds(-limiter.tryAcquire("10.0.0.1", T0)));
+        assertEquals(1, RateLimiter.retryAfterSeconds(-limiter.tryAcquire("10.0.0.1", T0 + SECOND + 1)));
+    }
+
+    @Test
+    void evictIdleRemovesOnlyFullBuckets() {
+        RateLimiter limiter = new RateLimiter("test", 5, 2);
+        limiter.tryAcquire("idle", T0);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("busy", T0 + SECOND);
+        }
+        assertEquals(2, limiter.size());
+
+        // idle在0.5秒后已补满，busy还需要2.5秒
+        assertEquals(1, limiter.evictIdle(T0 + SECOND));
+        assertEquals(1, limiter.size());
+        assertEquals(0, limiter.evictIdle(T0 + 3 * SECOND));
+        assertEquals(1, limiter.evictIdle(T0 + 3 * SECOND + SECOND / 2));
+        assertEquals(0, limiter.size());
+
+        // 清理后的键重新获得满桶
+        assertEquals(4, limiter.tryAcquire("busy", T0 + 4 * SECOND));
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter("test", 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter("test", 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter("test", 1, -1));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.randompsd.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * ETag只在写入提交或清理后改变：提交后相关标签改变，回滚不改变，清理使所有标签失效
+ */
+class HistoryVersionTrackerTests {
+
+    private final HistoryVersionTracker tracker = new HistoryVersionTracker();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void bumpChangesGlobalAndMatchingUserTag() {
+        String global = tracker.globalETag();
+        String alice = tracker.userETag(1L);
+        String bob = tracker.userETag(2L);
+
+        tracker.bumpAfterCommit(List.of(1L));
+
+        assertNotEquals(global, tracker.globalETag());
+        assertNotEquals(alice, tracker.userETag(1L));
+        assertEquals(bob, tracker.userETag(2L));
+    }
+
+    @Test
+    void anonymousWriteChangesOnlyGlobalTag() {
+        String global = tracker.globalETag();
+        String alice = tracker.userETag(1L);
+
+        tracker.bumpAfterCommit(Arrays.asList((Long) null));
+
+        assertNotEquals(global, tracker.globalETag());
+        assertEquals(alice, tracker.userETag(1L));
+    }
+
+    @Test
+    void userTagsAreDistinctEvenWhenSharingCounter() {
+        // 4096个计数器，ID相差4096的用户共用一个计数器，但标签中带有用户ID
+        assertNotEquals(tracker.userETag(1L), tracker.userETag(4097L));
+        String other = tracker.userETag(4097L);
+        tracker.bumpAfterCommit(List.of(1L));
+        // 共用计数器只会让另一个用户多返回一次200，不会误返回304
+        assertNotEquals(other, tracker.userETag(4097L));
+    }
+
+    @Test
+    void bumpWaitsForCommit() {
+        String global = tracker.globalETag();
+        String alice = tracker.userETag(1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        tracker.bumpAfterCommit(List.of(1L));
+        // 提交前读取方看到的仍是旧数据，标签不能提前改变
+        assertEquals(global, tracker.globalETag());
+        assertEquals(alice, tracker.userETag(1L));
+
+        complete(true);
+        assertNotEquals(global, tracker.globalETag());
+        assertNotEquals(alice, tracker.userETag(1L));
+    }
+
+    @Test
+    void rollbackDoesNotBump() {
+        String global = tracker.globalETag();
+        String alice = tracker.userETag(1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        tracker.bumpAfterCommit(List.of(1L));
+        complete(false);
+
+        assertEquals(global, tracker.globalETag());
+        assertEquals(alice, tracker.userETag(1L));
+    }
+
+    @Test
+    void invalidateAllChangesEveryTag() {
+        tracker.bumpAfterCommit(List.of(1L));
+        String global = tracker.globalETag();
+        String alice = tracker.userETag(1L);
+        String bob = tracker.userETag(2L);
+
+        tracker.invalidateAll();
+
+        assertNotEquals(global, tracker.globalETag());
+        assertNotEquals(alice, tracker.userETag(1L));
+        assertNotEquals(bob, tracker.userETag(2L));
+    }
+
+    @Test
+    void tagsDifferAcrossInstances() {
+        // 重启后版本号从0开始，旧ETag靠实例随机值失效
+        HistoryVersionTracker restarted = new HistoryVersionTracker();
+        assertNotEquals(tracker.globalETag(), restarted.globalETag());
+        assertNotEquals(tracker.userETag(1L), restarted.userETag(1L));
+    }
+
+    /**
+     * 按事务管理器的顺序触发已注册的回调
+     */
+    private static void complete(boolean committed) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (committed) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(committed
+                    ? TransactionSynchronization.STATUS_COMMITTED
+                    : TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.service.EntropyPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 带约束生成的每条约束都被满足，类别布局和类别内的字符均匀分布；随机源固定种子，结果可复现
+ */
+class PasswordGeneratorTests {
+
+    private static final int DRAWS = 5_000;
+
+    private final PasswordGenerator generator = new PasswordGenerator(seeded(20240301L));
+
+    @Test
+    void minPerClassIsMetForEveryClass() {
+        PasswordPolicy policy = new PasswordPolicy(2, false, null, false);
+        for (int length = 8; length <= 16; length++) {
+            for (int i = 0; i < DRAWS / 10; i++) {
+                String password = generator.generate(length, true, true, true, policy);
+                assertEquals(length, password.length());
+                assertTrue(count(password, PasswordGenerator.LOWER) >= 2, password);
+                assertTrue(count(password, PasswordGenerator.UPPER) >= 2, password);
+                assertTrue(count(password, PasswordGenerator.DIGITS) >= 2, password);
+                assertTrue(count(password, PasswordGenerator.SPECIAL) >= 2, password);
+            }
+        }
+
+        // 长度恰好等于类别数 × 每类最少字符数时，每类正好minPerClass个
+        for (int i = 0; i < DRAWS / 10; i++) {
+            String password = generator.generate(8, true, true, true, policy);
+            assertEquals(2, count(password, PasswordGenerator.DIGITS), password);
+        }
+    }
+
+    @Test
+    void excludeAmbiguousNeverEmitsAmbiguousCharacters() {
+        PasswordPolicy policy = new PasswordPolicy(1, true, null, false);
+        for (int i = 0; i < DRAWS; i++) {
+            String password = generator.generate(64, true, true, true, policy);
+            assertEquals(0, count(password, PasswordGenerator.AMBIGUOUS), password);
+        }
+
+        PasswordPolicy custom = new PasswordPolicy(0, true, "0O1lIab", false);
+        for (int i = 0; i < DRAWS; i++) {
+            String password = generator.generate(16, false, false, false, custom);
+            assertEquals(16, count(password, "ab"), password);
+        }
+    }
+
+    @Test
+    void noAdjacentRepeatsHoldsOverManyDraws() {
+        PasswordPolicy policy = new PasswordPolicy(1, false, null, true);
+        for (int i = 0; i < DRAWS; i++) {
+            assertNoAdjacentRepeats(generator.generate(32, true, true, true, policy));
+        }
+
+        // 只有两个字符时只能交替出现
+        PasswordPolicy pair = new PasswordPolicy(0, false, "ab", true);
+        for (int i = 0; i < DRAWS / 10; i++) {
+            String password = generator.generate(20, false, false, false, pair);
+            assertNoAdjacentRepeats(password);
+            assertTrue(password.equals("ab".repeat(10)) || password.equals("ba".repeat(10)), password);
+        }
+    }
+
+    @Test
+    void customAlphabetIsHonoured() {
+        String alphabet = "xyzXY789#%";
+        // 设置了自定义字符集时忽略useUpper/useDigits/useSpecial
+        PasswordPolicy policy = new PasswordPolicy(1, false, alphabet, false);
+        int[] seen = new int[128];
+        for (int i = 0; i < DRAWS; i++) {
+            String password = generator.generate(12, false, false, false, policy);
+            assertEquals(12, count(password, alphabet), password);
+            assertTrue(count(password, "xyz") >= 1, password);
+            assertTrue(count(password, "XY") >= 1, password);
+            assertTrue(count(password, "789") >= 1, password);
+            assertTrue(count(password, "#%") >= 1, password);
+            for (char c : password.toCharArray()) {
+                seen[c]++;
+            }
+        }
+        for (char c : alphabet.toCharArray()) {
+            assertTrue(seen[c] > 0, String.valueOf(c));
+        }
+
+        // 重复字符只算一个，不会提高被抽中的概率
+        assertEquals(PasswordGenerator.entropyBits(10, false, false, false, new PasswordPolicy(0, false, "ab", false)),
+                PasswordGenerator.entropyBits(10, false, false, false, new PasswordPolicy(0, false, "aaaab", false)));
+    }
+
+    @Test
+    void infeasiblePoliciesThrow() {
+        // 4类各3个需要12位
+        assertInfeasible(10, true, new PasswordPolicy(3, false, null, false));
+        assertInfeasible(10, true, new PasswordPolicy(-1, true, null, false));
+        // 排除易混淆字符后只剩一个不同字符
+        assertInfeasible(8, false, new PasswordPolicy(0, true, "0O1lIa", false));
+        assertInfeasible(8, false, new PasswordPolicy(0, false, "aaaa", false));
+        // 数字类别只有一个字符，每类至少一个且相邻不重复时可能无候选
+        assertInfeasible(8, false, new PasswordPolicy(1, false, "ab7", true));
+        assertInfeasible(8, false, new PasswordPolicy(0, false, "a b", false));
+        assertInfeasible(8, false, new PasswordPolicy(0, false, "ab\n", false));
+
+        StringBuilder large = new StringBuilder();
+        for (char c = 0x4E00; large.length() <= PasswordGenerator.MAX_CUSTOM_ALPHABET; c++) {
+            large.append(c);
+        }
+        assertInfeasible(8, false, new PasswordPolicy(0, false, large.toString(), false));
+    }
+
+    @Test
+    void requiredClassPositionsAreUniform() {
+        // 每位的类别与位置无关：12个位置 × 4个类别的列联表做卡方独立性检验
+        int length = 12;
+        int draws = 20_000;
+        String[] classes = {PasswordGenerator.LOWER, PasswordGenerator.UPPER, PasswordGenerator.DIGITS,
+                PasswordGenerator.SPECIAL};
+        PasswordPolicy policy = new PasswordPolicy(2, false, null, false);
+        long[][] observed = new long[length][classes.length];
+        for (int i = 0; i < draws; i++) {
+            String password = generator.generate(length, true, true, true, policy);
+            for (int p = 0; p < length; p++) {
+                observed[p][classOf(password.charAt(p), classes)]++;
+            }
+        }
+
+        long[] classTotals = new long[classes.length];
+        for (long[] row : observed) {
+            for (int c = 0; c < classes.length; c++) {
+                classTotals[c] += row[c];
+            }
+        }
+        double chiSquare = 0;
+        for (long[] row : observed) {
+            for (int c = 0; c < classes.length; c++) {
+                double expected = (double) classTotals[c] / length;
+                chiSquare += (row[c] - expected) * (row[c] - expected) / expected;
+            }
+        }
+        // 自由度 (12 - 1) × (4 - 1) = 33，显著性0.001的临界值约63.87
+        assertTrue(chiSquare < 63.87, "chi-square " + chiSquare);
+        assertNotEquals(0, chiSquare);
+    }
+
+    @Test
+    void charactersWithinClassAreUniform() {
+        // 排除易混淆字符后的大写字母类（24个字符）中每个字符出现次数的卡方拟合优度检验
+        PasswordPolicy policy = new PasswordPolicy(4, true, null, true);
+        long[] observed = new long[128];
+        long total = 0;
+        for (int i = 0; i < DRAWS * 4; i++) {
+            String password = generator.generate(16, true, true, true, policy);
+            for (char c : password.toCharArray()) {
+                if (PasswordGenerator.UPPER.indexOf(c) >= 0) {
+                    observed[c]++;
+                    total++;
+                }
+            }
+        }
+        String upper = PasswordGenerator.UPPER.replace("O", "").replace("I", "");
+        double expected = (double) total / upper.length();
+        double chiSquare = 0;
+        for (char c : upper.toCharArray()) {
+            chiSquare += (observed[c] - expected) * (observed[c] - expected) / expected;
+        }
+        // 自由度23，显著性0.001的临界值约49.73
+        assertTrue(chiSquare < 49.73, "chi-square " + chiSquare);
+    }
+
+    private void assertInfeasible(int length, boolean useAll, PasswordPolicy policy) {
+        assertThrows(IllegalArgumentException.class,
+                () -> generator.generate(length, useAll, useAll, useAll, policy));
+        assertThrows(IllegalArgumentException.class,
+                () -> PasswordGenerator.entropyBits(length, useAll, useAll, useAll, policy));
+    }
+
+    private static void assertNoAdjacentRepeats(String password) {
+        for (int i = 1; i < password.length(); i++) {
+            assertNotEquals(password.charAt(i - 1), password.charAt(i), password);
+        }
+    }
+
+    private static int count(String password, String chars) {
+        int count = 0;
+        for (int i = 0; i < password.length(); i++) {
+            if (chars.indexOf(password.charAt(i)) >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int classOf(char c, String[] classes) {
+        for (int i = 0; i < classes.length; i++) {
+            if (classes[i].indexOf(c) >= 0) {
+                return i;
+            }
+        }
+        throw new AssertionError("unexpected character " + c);
+    }
+
+    private static EntropyPool seeded(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        return new EntropyPool() {
+            @Override
+            public long nextLong() {
+                return random.nextLong();
+            }
+
+            @Override
+            public int nextInt(int bound) {
+                return random.nextInt(bound);
+            }
+        };
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.model.PasswordHistory;
+import com.example.randompsd.repository.PasswordHistoryBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 异步批量写入：按数量和时间触发刷新、队列满时退回同步写入、关闭时写完剩余记录、失败时重试和逐条写入
+ */
+class PasswordHistoryWriteBehindTests {
+
+    private static final String FLUSHER = "password-history-flusher";
+
+    private final AtomicInteger ids = new AtomicInteger();
+
+    private PasswordHistoryBatchRepository repository;
+    private PasswordMetrics passwordMetrics;
+    private RecentHistoryRing recentHistoryRing;
+    private HistoryVersionTracker historyVersionTracker;
+    private PasswordHistoryWriteBehind writeBehind;
+
+    // 每次insertAll调用的副本（调用方在刷新后会清空批次列表）和调用线程
+    private final BlockingQueue<List<PasswordHistory>> inserted = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> insertThreads = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(PasswordHistoryBatchRepository.class);
+        doAnswer(invocation -> record(invocation.getArgument(0))).when(repository).insertAll(any());
+        passwordMetrics = new PasswordMetrics(new SimpleMeterRegistry());
+        recentHistoryRing = new RecentHistoryRing();
+        ReflectionTestUtils.setField(recentHistoryRing, "capacity", 64);
+        recentHistoryRing.init();
+        historyVersionTracker = new HistoryVersionTracker();
+
+        writeBehind = new PasswordHistoryWriteBehind();
+        ReflectionTestUtils.setField(writeBehind, "passwordHistoryBatchRepository", repository);
+        ReflectionTestUtils.setField(writeBehind, "recentHistoryRing", recentHistoryRing);
+        ReflectionTestUtils.setField(writeBehind, "passwordMetrics", passwordMetrics);
+        ReflectionTestUtils.setField(writeBehind, "historyVersionTracker", historyVersionTracker);
+        ReflectionTestUtils.setField(writeBehind, "enabled", true);
+        ReflectionTestUtils.setField(writeBehind, "capacity", 1000);
+        ReflectionTestUtils.setField(writeBehind, "batchSize", 5);
+        ReflectionTestUtils.setField(writeBehind, "flushIntervalMs", 1_000L);
+        ReflectionTestUtils.setField(writeBehind, "offerTimeoutMs", 10L);
+        ReflectionTestUtils.setField(writeBehind, "maxRetries", 2);
+        ReflectionTestUtils.setField(writeBehind, "retryBackoffMs", 1L);
+        ReflectionTestUtils.setField(writeBehind, "shutdownTimeoutMs", 5_000L);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writeBehind.stop();
+    }
+
+    @Test
+    void fullBatchIsFlushedWithoutWaitingForInterval() throws InterruptedException {
+        ReflectionTestUtils.setField(writeBehind, "flushIntervalMs", 3_000L);
+        writeBehind.start();
+        String tag = historyVersionTracker.globalETag();
+        List<PasswordHistory> histories = histories(5);
+        histories.forEach(writeBehind::enqueue);
+
+        // 刷新间隔为3秒，5条记录达到批量大小后立即写入
+        List<PasswordHistory> batch = inserted.poll(2, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertEquals(histories, batch);
+        assertEquals(FLUSHER, insertThreads.poll());
+
+        // 计时和发布在insertAll返回之后，停止（等待后台线程结束）后再检查
+        writeBehind.stop();
+        assertEquals(1, passwordMetrics.persistFlush().count());
+        assertEquals(5, recentHistoryRing.latest(10).size());
+        assertNotEquals(tag, historyVersionTracker.globalETag());
+    }
+
+    @Test
+    void partialBatchIsFlushedAfterInterval() throws InterruptedException {
+        ReflectionTestUtils.setField(writeBehind, "batchSize", 100);
+        ReflectionTestUtils.setField(writeBehind, "flushIntervalMs", 100L);
+        writeBehind.start();
+        List<PasswordHistory> histories = histories(3);
+
+        long start = System.nanoTime();
+        histories.forEach(writeBehind::enqueue);
+        List<PasswordHistory> batch = inserted.poll(5, TimeUnit.SECONDS);
+
+        assertEquals(histories, batch);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90),
+                "flushed before the interval elapsed");
+    }
+
+    @Test
+    void fullQueueFallsBackToSynchronousInsert() throws InterruptedException {
+        ReflectionTestUtils.setField(writeBehind, "capacity", 1);
+        ReflectionTestUtils.setField(writeBehind, "batchSize", 1);
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // 后台线程写入时阻塞，模拟数据库变慢
+        doAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals(FLUSHER)) {
+                flushing.countDown();
+                release.await();
+            }
+            return record(invocation.getArgument(0));
+        }).when(repository).insertAll(any());
+        writeBehind.start();
+
+        List<PasswordHistory> histories = histories(3);
+        writeBehind.enqueue(histories.get(0));
+        // 等后台线程取走第一条并阻塞在写入上
+        assertTrue(flushing.await(2, TimeUnit.SECONDS));
+        writeBehind.enqueue(histories.get(1));
+
+        // 队列已满，offer超时后在请求线程同步写入并立即可见
+        writeBehind.enqueue(histories.get(2));
+        assertEquals(List.of(histories.get(2)), inserted.poll());
+        assertEquals(Thread.currentThread().getName(), insertThreads.poll());
+        assertEquals(histories.get(2).getId(), recentHistoryRing.latest(1).getFirst().id());
+
+        release.countDown();
+        assertEquals(List.of(histories.get(0)), inserted.poll(2, TimeUnit.SECONDS));
+        assertEquals(List.of(histories.get(1)), inserted.poll(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void disabledWriteBehindInsertsSynchronously() {
+        ReflectionTestUtils.setField(writeBehind, "enabled", false);
+        writeBehind.start();
+
+        PasswordHistory history = histories(1).getFirst();
+        writeBehind.enqueue(history);
+
+        assertEquals(List.of(history), inserted.poll());
+        assertEquals(Thread.currentThread().getName(), insertThreads.poll());
+    }
+
+    @Test
+    void stopWritesEverythingStillQueued() throws InterruptedException {
+        ReflectionTestUtils.setField(writeBehind, "batchSize", 4);
+        writeBehind.start();
+        List<PasswordHistory> histories = histories(10);
+        histories.forEach(writeBehind::enqueue);
+
+        writeBehind.stop();
+
+        List<PasswordHistory> all = new ArrayList<>();
+        for (List<PasswordHistory> batch; (batch = inserted.poll()) != null; ) {
+            assertTrue(batch.size() <= 4, "batch " + batch.size());
+            all.addAll(batch);
+        }
+        assertEquals(histories, all);
+
+        // 停止后入队的记录同步写入
+        PasswordHistory late = histories(1).getFirst();
+        writeBehind.enqueue(late);
+        assertEquals(List.of(late), inserted.poll());
+    }
+
+    @Test
+    void failedBatchIsRetried() throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger(2);
+        doAnswer(invocation -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new DataAccessResourceFailureException("connection reset");
+            }
+            return record(invocation.getArgument(0));
+        }).when(repository).insertAll(any());
+        writeBehind.start();
+        List<PasswordHistory> histories = histories(5);
+        histories.forEach(writeBehind::enqueue);
+
+        assertEquals(histories, inserted.poll(2, TimeUnit.SECONDS));
+        writeBehind.stop();
+        assertNull(inserted.poll());
+        assertEquals(0, passwordMetrics.persistDropped().count());
+        assertEquals(5, recentHistoryRing.latest(10).size());
+    }
+
+    @Test
+    void batchThatKeepsFailingIsWrittenRowByRow() throws InterruptedException {
+        List<PasswordHistory> histories = histories(5);
+        PasswordHistory bad = histories.get(2);
+        doAnswer(invocation -> {
+            List<PasswordHistory> batch = invocation.getArgument(0);
+            if (batch.contains(bad)) {
+                throw new DataIntegrityViolationException("Data too long for column 'password'");
+            }
+            return record(batch);
+        }).when(repository).insertAll(any());
+        writeBehind.start();
+        histories.forEach(writeBehind::enqueue);
+
+        // 整批重试2次后逐条写入，只有出问题的一条被丢弃
+        List<PasswordHistory> saved = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<PasswordHistory> batch = inserted.poll(2, TimeUnit.SECONDS);
+            assertNotNull(batch);
+            assertEquals(1, batch.size());
+            saved.addAll(batch);
+        }
+        List<PasswordHistory> expected = new ArrayList<>(histories);
+        expected.remove(bad);
+        assertEquals(expected, saved);
+
+        writeBehind.stop();
+        assertEquals(1, passwordMetrics.persistDropped().count());
+        assertEquals(4, recentHistoryRing.latest(10).size());
+    }
+
+    private int record(List<PasswordHistory> batch) {
+        for (PasswordHistory history : batch) {
+            if (history.getId() == null) {
+                history.setId((long) ids.incrementAndGet());
+            }
+        }
+        // 先记录线程再记录批次，测试线程取到批次时线程名一定已经可见
+        insertThreads.add(Thread.currentThread().getName());
+        inserted.add(List.copyOf(batch));
+        return batch.size();
+    }
+
+    private static List<PasswordHistory> histories(int count) {
+        List<PasswordHistory> histories = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PasswordHistory history = new PasswordHistory();
+            history.setPassword("p" + System.nanoTime() + "-" + i);
+            history.setLength(12);
+            history.setCreatedAt(LocalDateTime.now());
+            histories.add(history);
+        }
+        return histories;
+    }
+}
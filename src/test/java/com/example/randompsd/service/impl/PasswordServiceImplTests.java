@@ -0,0 +1,134 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.dto.PasswordRequest;
+import com.example.randompsd.index.WordList;
+import com.example.randompsd.model.PasswordHistory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 生成前按历史记录的列长度校验参数；默认口令短语的熵不低于标准Diceware 6个词；只有单次生成使用密码池
+ */
+class PasswordServiceImplTests {
+
+    private PasswordServiceImpl passwordService;
+    private PasswordMetrics passwordMetrics;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StripedEntropyPool entropyPool = new StripedEntropyPool(1, 4096, 1 << 20, 600_000);
+        passwordService = new PasswordServiceImpl();
+        passwordMetrics = new PasswordMetrics(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(passwordService, "passwordMetrics", passwordMetrics);
+        ReflectionTestUtils.setField(passwordService, "breachLookupService", new BreachLookupServiceImpl());
+        ReflectionTestUtils.setField(passwordService, "passwordPool", new PasswordPool());
+        ReflectionTestUtils.setField(passwordService, "passwordGenerator", new PasswordGenerator(entropyPool));
+        try (InputStream in = new ClassPathResource("dictionary/passphrase-words.txt").getInputStream()) {
+            ReflectionTestUtils.setField(passwordService, "passphraseGenerator",
+                    new PassphraseGenerator(entropyPool, WordList.load(in)));
+        }
+        ReflectionTestUtils.setField(passwordService, "passphraseDefaultWords", 8);
+        ReflectionTestUtils.setField(passwordService, "passphraseMaxWords", 20);
+    }
+
+    @Test
+    void passphraseThatMayExceedColumnIsRejectedBeforeGenerating() {
+        // 20个词加8字符分隔符：20 × 10 + 19 × 8 = 352
+        PasswordRequest request = passphrase(20, "--------");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> passwordService.validate(request));
+        assertTrue(e.getMessage().contains("352"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> passwordService.generatePassword(request));
+    }
+
+    @Test
+    void passphraseWithinColumnIsGenerated() {
+        // 20 × 10 + 19 × 2 + 1 = 239
+        PasswordRequest request = passphrase(20, "__");
+        request.setInjectDigit(true);
+        assertDoesNotThrow(() -> passwordService.validate(request));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(passwordService.generatePassword(request).length() <= PasswordHistory.MAX_PASSWORD_LENGTH);
+        }
+    }
+
+    @Test
+    void randomLengthIsLimitedToColumn() {
+        PasswordRequest request = new PasswordRequest();
+        request.setLength(PasswordHistory.MAX_PASSWORD_LENGTH);
+        request.setUseUpper(true);
+        assertEquals(PasswordHistory.MAX_PASSWORD_LENGTH, passwordService.generatePassword(request).length());
+
+        request.setLength(PasswordHistory.MAX_PASSWORD_LENGTH + 1);
+        assertThrows(IllegalArgumentException.class, () -> passwordService.validate(request));
+        assertThrows(IllegalArgumentException.class, () -> passwordService.generatePassword(request));
+    }
+
+    @Test
+    void defaultPassphraseMeetsDicewareTarget() {
+        // 标准Diceware词表7776个词，6个词约77.5位
+        double dicewareSixWords = 6 * Math.log(7776) / Math.log(2);
+        double bits = passwordService.entropyBits(passphrase(0, null));
+        assertEquals(83.7, bits);
+        assertTrue(bits >= dicewareSixWords);
+    }
+
+    @Test
+    void onlySingleGenerationTakesFromPool() {
+        PasswordPool pool = mock(PasswordPool.class);
+        when(pool.isEnabled()).thenReturn(true);
+        when(pool.take(16, true, true, false)).thenReturn("pooledPassword16");
+        ReflectionTestUtils.setField(passwordService, "passwordPool", pool);
+        PasswordRequest request = new PasswordRequest();
+        request.setLength(16);
+        request.setUseUpper(true);
+        request.setUseDigits(true);
+
+        // 批量生成走generatePassword，不取池也不计入形态统计
+        assertNotEquals("pooledPassword16", passwordService.generatePassword(request));
+        verify(pool, never()).take(anyInt(), anyBoolean(), anyBoolean(), anyBoolean());
+
+        assertEquals("pooledPassword16", passwordService.generateSinglePassword(request));
+        // 命中密码池的请求同样计入生成耗时
+        assertEquals(2, passwordMetrics.generation(16, true, true, false).count());
+    }
+
+    @Test
+    void constrainedSingleGenerationBypassesPool() {
+        PasswordPool pool = mock(PasswordPool.class);
+        when(pool.isEnabled()).thenReturn(true);
+        ReflectionTestUtils.setField(passwordService, "passwordPool", pool);
+        PasswordRequest request = new PasswordRequest();
+        request.setLength(16);
+        request.setMinPerClass(1);
+
+        assertEquals(16, passwordService.generateSinglePassword(request).length());
+        verify(pool, never()).take(anyInt(), anyBoolean(), anyBoolean(), anyBoolean());
+    }
+
+    private static PasswordRequest passphrase(int wordCount, String separator) {
+        PasswordRequest request = new PasswordRequest();
+        request.setMode("passphrase");
+        request.setWordCount(wordCount);
+        request.setSeparator(separator);
+        return request;
+    }
+}
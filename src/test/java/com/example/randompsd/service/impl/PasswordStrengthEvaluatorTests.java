@@ -0,0 +1,149 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.dto.PasswordStrength;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 单次遍历的强度评估必须与原正则实现的评分完全一致
+ */
+class PasswordStrengthEvaluatorTests {
+
+    private static final List<String> CORPUS = List.of(
+            "a", "ab", "abc", "A1", "1a!",
+            "password", "Password", "password1", "Password123!", "P@ssw0rd",
+            "123456", "12345678", "qwerty", "letmein", "iloveyou", "admin",
+            "abc123", "Abc123!@#", "aaaaaaaaaaaaaaaa", "AAAAaaaa1111!!!!",
+            "Tr0ub4dor&3", "correcthorsebatterystaple", "correct horse battery staple",
+            "x9!x9!x9!x9!", "!a!", "a!!a", "a1b", "a12b", "!!", "!ab!", "a!b!c",
+            "zZ", "zZzZzZ", "Zz9", "0O1lI", "!@#$%^&*()_+-=[]{}|;:,.<>?",
+            "密码", "密码123", "Pässwörd1", "ÄÖÜäöü", "ПарольTest1",
+            "line\nbreak", "a\nb\nc", "\n\n\n", "a\r\nb", "tab\tbed",
+            "emoji😀pass", "a😀b", "😀😀", "a😀😀b", "ab😀", "😀ab", "a\uD83Db", "a\uDE00\uD83Db",
+            "12345678901234567890", "aB3$aB3$aB3$aB3$aB3$"
+    );
+
+    @Test
+    void corpusScoresMatchLegacyImplementation() {
+        for (String password : CORPUS) {
+            assertMatchesLegacy(password);
+        }
+    }
+
+    @Test
+    void randomPasswordsMatchLegacyImplementation() {
+        Random random = new Random(20240501L);
+        String alphabet = "abcXYZ019!@ \n\r\t_é中😀😀";
+        for (int n = 0; n < 20000; n++) {
+            int length = 1 + random.nextInt(24);
+            StringBuilder password = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                password.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertMatchesLegacy(password.toString());
+        }
+    }
+
+    private static void assertMatchesLegacy(String password) {
+        Map<String, Object> expected = legacyEvaluate(password);
+        PasswordStrength actual = PasswordStrengthEvaluator.evaluate(password);
+        assertEquals(expected.get("score"), actual.score(), () -> "score: " + escape(password));
+        assertEquals(expected.get("strength"), actual.strength(), () -> "strength: " + escape(password));
+        assertEquals(expected.get("feedback"), actual.feedback(), () -> "feedback: " + escape(password));
+    }
+
+    private static String escape(String password) {
+        StringBuilder escaped = new StringBuilder();
+        password.chars().forEach(c -> escaped.append(c < 0x20 || c > 0x7e ? String.format("\\u%04x", c) : String.valueOf((char) c)));
+        return escaped.toString();
+    }
+
+    /**
+     * 原PasswordServiceImpl.evaluatePasswordStrength实现，作为评分基准
+     */
+    private static Map<String, Object> legacyEvaluate(String password) {
+        Map<String, Object> result = new HashMap<>();
+        int score = 0;
+        StringBuilder feedback = new StringBuilder();
+
+        int lengthScore = Math.min(password.length() * 4, 40);
+        score += lengthScore;
+
+        boolean hasLower = Pattern.compile("[a-z]").matcher(password).find();
+        boolean hasUpper = Pattern.compile("[A-Z]").matcher(password).find();
+        boolean hasDigit = Pattern.compile("\\d").matcher(password).find();
+        boolean hasSpecial = Pattern.compile("[^a-zA-Z0-9]").matcher(password).find();
+
+        int diversityScore = 0;
+        if (hasLower) diversityScore += 10;
+        if (hasUpper) diversityScore += 10;
+        if (hasDigit) diversityScore += 10;
+        if (hasSpecial) diversityScore += 10;
+        score += diversityScore;
+
+        int extraScore = 0;
+
+        if (password.length() > 2 && (Pattern.compile("[^a-zA-Z].*[^a-zA-Z]").matcher(password.substring(1, password.length() - 1)).find())) {
+            extraScore += 10;
+        }
+
+        int alterations = 0;
+        for (int i = 1; i < password.length(); i++) {
+            char prev = password.charAt(i - 1);
+            char curr = password.charAt(i);
+
+            boolean prevIsLetter = Character.isLetter(prev);
+            boolean currIsLetter = Character.isLetter(curr);
+
+            if (prevIsLetter != currIsLetter) {
+                alterations++;
+            } else if (prevIsLetter && currIsLetter) {
+                boolean prevIsUpper = Character.isUpperCase(prev);
+                boolean currIsUpper = Character.isUpperCase(curr);
+                if (prevIsUpper != currIsUpper) {
+                    alterations++;
+                }
+            }
+        }
+        if (alterations >= password.length() / 3) {
+            extraScore += 10;
+        }
+
+        score += extraScore;
+        score = Math.min(score, 100);
+
+        String strength;
+        if (score < 40) {
+            strength = "弱";
+            feedback.append("密码强度较弱，建议增加长度和复杂性。");
+        } else if (score < 70) {
+            strength = "中等";
+            feedback.append("密码强度中等，可以考虑增加特殊字符或大小写混合。");
+        } else if (score < 90) {
+            strength = "强";
+            feedback.append("密码强度良好。");
+        } else {
+            strength = "非常强";
+            feedback.append("密码强度极佳！");
+        }
+
+        if (!hasUpper) feedback.append("\n添加大写字母可以提高密码强度。");
+        if (!hasLower) feedback.append("\n添加小写字母可以提高密码强度。");
+        if (!hasDigit) feedback.append("\n添加数字可以提高密码强度。");
+        if (!hasSpecial) feedback.append("\n添加特殊字符可以提高密码强度。");
+        if (password.length() < 12) feedback.append("\n建议密码长度至少为12位。");
+
+        result.put("score", score);
+        result.put("strength", strength);
+        result.put("feedback", feedback.toString());
+
+        return result;
+    }
+}
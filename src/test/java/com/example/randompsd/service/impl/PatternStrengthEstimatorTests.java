@@ -0,0 +1,49 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.dto.EntropyEstimate;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 超长输入的估算结果必须是有限值，否则无法序列化为JSON
+ */
+class PatternStrengthEstimatorTests {
+
+    private static PatternStrengthEstimator estimator;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        estimator = new PatternStrengthEstimator();
+        estimator.init();
+    }
+
+    @Test
+    void longInputGuessesStayFinite() {
+        Random random = new Random(20240601L);
+        StringBuilder password = new StringBuilder();
+        for (int i = 0; i < 4096; i++) {
+            password.append((char) ('!' + random.nextInt(94)));
+        }
+
+        EntropyEstimate estimate = estimator.estimate(password.toString());
+
+        assertTrue(Double.isFinite(estimate.guesses()));
+        assertEquals(Math.pow(10, PatternStrengthEstimator.MAX_LOG10_GUESSES), estimate.guesses());
+        assertTrue(Double.isFinite(estimate.entropyBits()));
+        assertTrue(estimate.entropyBits() > PatternStrengthEstimator.MAX_LOG10_GUESSES / Math.log10(2));
+        assertEquals(4, estimate.score());
+    }
+
+    @Test
+    void shortInputGuessesAreUnclamped() {
+        EntropyEstimate estimate = estimator.estimate("password");
+
+        assertTrue(estimate.guesses() < 1e6);
+        assertEquals(estimate.entropyBits(), Math.log10(estimate.guesses()) / Math.log10(2), 0.01);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.dto.PasswordHistoryView;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 并发发布与读取时，读取结果始终有序、不重复且不超过上限；发布结束后缓冲区保留最后写入的记录
+ */
+class RecentHistoryRingTests {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @Test
+    void rejectsCapacityBelowFeedSize() {
+        assertThrows(IllegalArgumentException.class, () -> ring(0));
+        assertThrows(IllegalArgumentException.class, () -> ring(RecentHistoryRing.MIN_CAPACITY - 1));
+        assertEquals(RecentHistoryRing.MIN_CAPACITY, ring(RecentHistoryRing.MIN_CAPACITY).capacity());
+    }
+
+    @Test
+    void latestReturnsNewestFirstUpToLimit() {
+        RecentHistoryRing ring = ring(16);
+        List<PasswordHistoryView> views = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            views.add(view());
+        }
+        ring.publishAfterCommit(views);
+
+        List<PasswordHistoryView> latest = ring.latest(10);
+        assertEquals(views.subList(30, 40).reversed(), latest);
+        assertEquals(views.subList(24, 40).reversed(), ring.latest(100));
+    }
+
+    @Test
+    void concurrentPublishAndLatest() throws Exception {
+        int capacity = 32;
+        int writers = 4;
+        int perWriter = 20_000;
+        RecentHistoryRing ring = ring(capacity);
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perWriter; i++) {
+                        ring.publishAfterCommit(List.of(view()));
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        Thread reader = Thread.ofPlatform().start(() -> {
+            try {
+                start.await();
+                while (writing.get()) {
+                    assertWellFormed(ring.latest(RecentHistoryRing.MIN_CAPACITY), RecentHistoryRing.MIN_CAPACITY);
+                }
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writing.set(false);
+        reader.join();
+        assertTrue(failures.isEmpty(), () -> failures.peek().toString());
+
+        List<PasswordHistoryView> all = ring.latest(capacity);
+        assertEquals(capacity, all.size());
+        assertWellFormed(all, capacity);
+
+        // 并发结束后所有槽位的序号一致，新的一圈发布会完整替换缓冲区内容
+        List<PasswordHistoryView> next = new ArrayList<>();
+        for (int i = 0; i < capacity; i++) {
+            next.add(view());
+        }
+        next.forEach(view -> ring.publishAfterCommit(List.of(view)));
+        assertEquals(next.reversed(), ring.latest(capacity));
+    }
+
+    private static void assertWellFormed(List<PasswordHistoryView> views, int limit) {
+        assertTrue(views.size() <= limit, "size " + views.size());
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < views.size(); i++) {
+            assertTrue(seen.add(views.get(i).id()), "duplicate " + views.get(i).id());
+            if (i > 0) {
+                assertTrue(!views.get(i).createdAt().isAfter(views.get(i - 1).createdAt()), "order at " + i);
+            }
+        }
+    }
+
+    private static RecentHistoryRing ring(int capacity) {
+        RecentHistoryRing ring = new RecentHistoryRing();
+        ReflectionTestUtils.setField(ring, "capacity", capacity);
+        ring.init();
+        return ring;
+    }
+
+    private PasswordHistoryView view() {
+        long id = ids.incrementAndGet();
+        return new PasswordHistoryView(id, "p" + id, 12, true, true, false, EPOCH.plusNanos(id * 1000));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.randompsd.service.impl;
+
+import com.example.randompsd.dto.UserRegistrationRequest;
+import com.example.randompsd.model.User;
+import com.example.randompsd.repository.UserRepository;
+import com.example.randompsd.security.PasswordHashingExecutor;
+import com.example.randompsd.security.UserDetailsCache;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 注册时违反唯一约束，按约束名转换为对应字段的错误信息
+ */
+class UserServiceImplTests {
+
+    private UserRepository userRepository;
+    private UserServiceImpl userService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        PasswordHashingExecutor hashingExecutor = mock(PasswordHashingExecutor.class);
+        when(hashingExecutor.encode(anyString())).thenReturn("$2a$10$hash");
+
+        userService = new UserServiceImpl();
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "passwordHashingExecutor", hashingExecutor);
+        ReflectionTestUtils.setField(userService, "userDetailsCache", mock(UserDetailsCache.class));
+        ReflectionTestUtils.setField(userService, "userAvailabilityIndex", mock(UserAvailabilityIndex.class));
+    }
+
+    @Test
+    void constraintNamesMapToMessages() {
+        assertEquals(UserServiceImpl.USERNAME_TAKEN, UserServiceImpl.duplicateMessage(User.UK_USERNAME));
+        assertEquals(UserServiceImpl.EMAIL_TAKEN, UserServiceImpl.duplicateMessage(User.UK_EMAIL));
+        // MySQL 8 报告的约束名带表名前缀，大小写可能不同
+        assertEquals(UserServiceImpl.USERNAME_TAKEN, UserServiceImpl.duplicateMessage("users.uk_users_username"));
+        assertEquals(UserServiceImpl.EMAIL_TAKEN, UserServiceImpl.duplicateMessage("USERS.UK_USERS_EMAIL"));
+        // 旧版本自动命名的约束和未知约束无法按名称区分
+        assertNull(UserServiceImpl.duplicateMessage("UKr43af9ap4edm43mmtq01oddj6"));
+        assertNull(UserServiceImpl.duplicateMessage("UK_6dotkott2kjsp8vw4d0m25fb7"));
+        assertNull(UserServiceImpl.duplicateMessage(null));
+    }
+
+    @Test
+    void duplicateUsernameIsReportedWithoutExtraQuery() {
+        when(userRepository.saveAndFlush(any())).thenThrow(violation("users.uk_users_username"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> userService.registerUser(request()));
+
+        assertEquals(UserServiceImpl.USERNAME_TAKEN, e.getMessage());
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
+    }
+
+    @Test
+    void duplicateEmailIsReportedWithoutExtraQuery() {
+        when(userRepository.saveAndFlush(any())).thenThrow(violation("users.uk_users_email"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> userService.registerUser(request()));
+
+        assertEquals(UserServiceImpl.EMAIL_TAKEN, e.getMessage());
+        verify(userRepository, never()).existsByUsername(anyString());
+        verify(userRepository, never()).existsByEmail(anyString());
+    }
+
+    @Test
+    void legacyConstraintFallsBackToQueries() {
+        when(userRepository.saveAndFlush(any())).thenThrow(violation("UKr43af9ap4edm43mmtq01oddj6"));
+        when(userRepository.existsByUsername("alice")).thenReturn(false);
+        when(userRepository.existsByEmail("alice@example.com")).thenReturn(true);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> userService.registerUser(request()));
+
+        assertEquals(UserServiceImpl.EMAIL_TAKEN, e.getMessage());
+    }
+
+    @Test
+    void unrelatedViolationIsRethrown() {
+        DataIntegrityViolationException violation = violation("fk_something_else");
+        when(userRepository.saveAndFlush(any())).thenThrow(violation);
+
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> userService.registerUser(request()));
+
+        assertSame(violation, e);
+    }
+
+    private static DataIntegrityViolationException violation(String constraintName) {
+        SQLIntegrityConstraintViolationException sql = new SQLIntegrityConstraintViolationException(
+                "Duplicate entry 'alice' for key '" + constraintName + "'", "23000", 1062);
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sql, constraintName));
+    }
+
+    private static UserRegistrationRequest request() {
+        UserRegistrationRequest request = new UserRegistrationRequest();
+        request.setUsername("alice");
+        request.setEmail("alice@example.com");
+        request.setPassword("correct horse");
+        return request;
+    }
+}